@@ -0,0 +1,131 @@
+package com.bank.userservice.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Адаптивный предел одновременных запросов по градиенту задержки.
+ *
+ * <p>Сравнивает краткосрочную среднюю задержку (последние ~{@value #SHORT_WINDOW} запросов)
+ * с базовой. Базовая сразу опускается до краткосрочной, а растет как среднее по
+ * ~{@value #LONG_WINDOW} запросам, поэтому задержка под перегрузкой не становится нормой.
+ * Пока задержка не превышает базовую более чем в {@code tolerance} раз, предел растет
+ * на корень из текущего, если он используется хотя бы наполовину. Когда запросы начинают
+ * ждать в очередях (BCrypt, SMTP, пул соединений), задержка растет и предел уменьшается
+ * пропорционально, но не более чем вдвое за шаг. Запрос, не завершенный за время ожидания,
+ * уменьшает предел в {@value #BACKOFF_RATIO} раза.
+ *
+ * <p>Захват и освобождение разрешения не блокируют поток; пересчет предела выполняется
+ * под монитором после завершения запроса.
+ */
+public class AdaptiveConcurrencyLimiter {
+    /** Число запросов, по которому усредняется краткосрочная задержка */
+    static final int SHORT_WINDOW = 10;
+    /** Число запросов, по которому усредняется рост базовой задержки */
+    static final int LONG_WINDOW = 600;
+    /** Доля нового значения предела при сглаживании */
+    private static final double SMOOTHING = 0.2;
+    /** Множитель предела при запросе, не завершенном вовремя */
+    static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Текущий предел, читается без блокировки при каждом запросе */
+    private volatile int limit;
+
+    // Состояние пересчета, защищено монитором
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    /**
+     * @param initialLimit начальный предел
+     * @param minLimit минимальный предел
+     * @param maxLimit максимальный предел
+     * @param tolerance допустимое превышение долгосрочной задержки, при котором предел не уменьшается
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || tolerance < 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings: min " + minLimit
+                    + ", max " + maxLimit + ", tolerance " + tolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Захватывает разрешение, если предел не достигнут.
+     *
+     * @return true если запрос можно выполнять, false если его нужно отклонить
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Освобождает разрешение и пересчитывает предел по задержке запроса.
+     *
+     * @param rttNanos время выполнения запроса в наносекундах
+     * @param dropped true если запрос не завершился за время ожидания
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(rttNanos, dropped, inFlightBefore);
+    }
+
+    /**
+     * @return текущий предел
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return количество выполняемых запросов
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, boolean dropped, int inFlightBefore) {
+        if (dropped) {
+            setLimit(estimatedLimit * BACKOFF_RATIO);
+            return;
+        }
+        if (shortRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+        longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        // Базовая задержка не должна запоминать перегрузку: снижается сразу, растет медленно
+        if (shortRttNanos < longRttNanos) {
+            longRttNanos = shortRttNanos;
+        }
+        // Предел, используемый меньше чем наполовину, ничего не говорит о пропускной способности
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        setLimit(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private void setLimit(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,96 @@
+package com.bank.userservice.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Диагностика закрепления виртуальных потоков за потоком-носителем.
+ *
+ * <p>Виртуальный поток, заблокированный внутри {@code synchronized} или нативного вызова,
+ * не освобождает носитель, и при массовом закреплении пропускная способность падает
+ * до числа носителей. Монитор подписывается на событие JFR {@value #PINNED_EVENT}
+ * и для каждого закрепления дольше порога пишет в журнал верхние кадры стека
+ * и записывает длительность в метрику {@code app.threads.virtual.pinned}.
+ *
+ * <p>Известный источник закрепления - отправка почты: {@code SMTPTransport} Jakarta Mail
+ * держит монитор на время сетевого обмена.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor {
+    /** Событие JFR о закреплении виртуального потока (Java 21) */
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    /** Количество кадров стека в журнале */
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final Timer pinnedTimer;
+    private RecordingStream stream;
+
+    /**
+     * @param meterRegistry реестр метрик
+     * @param threshold минимальная длительность закрепления, о которой сообщается
+     */
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        this.threshold = threshold;
+        this.pinnedTimer = Timer.builder("app.threads.virtual.pinned")
+                .description("Time virtual threads spent pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запускает подписку на события закрепления.
+     */
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started, threshold {} ms", threshold.toMillis());
+    }
+
+    /**
+     * Останавливает подписку при остановке приложения.
+     */
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Обрабатывает событие закрепления.
+     *
+     * @param event событие JFR
+     */
+    void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+        log.warn("Virtual thread {} pinned for {} ms at {}",
+                event.getThread() == null ? "?" : event.getThread().getJavaName(),
+                event.getDuration().toMillis(), topFrames(event.getStackTrace()));
+    }
+
+    private static String topFrames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown location";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+    }
+}
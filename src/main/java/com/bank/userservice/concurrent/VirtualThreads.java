@@ -0,0 +1,92 @@
+package com.bank.userservice.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Доступ к виртуальным потокам Java 21.
+ *
+ * <p>Сборка совместима с Java 17, поэтому API виртуальных потоков вызывается через
+ * {@link MethodHandle}. На Java 17 {@link #isSupported()} возвращает false,
+ * а {@link #isVirtual(Thread)} - всегда false.
+ */
+public final class VirtualThreads {
+    /** {@code Thread.ofVirtual()} */
+    private static final MethodHandle OF_VIRTUAL;
+    /** {@code Thread.Builder#name(String, long)} */
+    private static final MethodHandle NAME;
+    /** {@code Thread.Builder#factory()} */
+    private static final MethodHandle FACTORY;
+    /** {@code Thread#isVirtual()} */
+    private static final MethodHandle IS_VIRTUAL;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle isVirtual = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+            name = lookup.findVirtual(ofVirtualBuilder, "name",
+                    MethodType.methodType(ofVirtualBuilder, String.class, long.class));
+            factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            // Java 17: виртуальных потоков нет
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true если JVM поддерживает виртуальные потоки (Java 21+)
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Создает фабрику виртуальных потоков с именами {@code <prefix><номер>}.
+     *
+     * @param prefix префикс имени потока
+     * @return фабрика виртуальных потоков
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or newer, running on "
+                    + Runtime.version());
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(), prefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * @param thread поток
+     * @return true если поток виртуальный
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+}
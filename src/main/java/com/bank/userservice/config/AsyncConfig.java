@@ -0,0 +1,94 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.concurrent.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Конфигурационный класс пулов потоков для параллельного выполнения шагов запроса.
+ *
+ * <p>Блокирующие вызовы (HTTP, БД) и CPU-нагрузка (BCrypt) выполняются в разных пулах,
+ * чтобы хеширование паролей не вытесняло ввод-вывод и наоборот. При переполнении
+ * очереди задача выполняется в вызывающем потоке, в том числе после остановки пула:
+ * {@link ThreadPoolExecutor.CallerRunsPolicy} такую задачу молча отбрасывает, и
+ * CompletableFuture, этап которого не выполнился, не завершается никогда.
+ *
+ * <p>Все пулы, включая пул {@code @Async} из автоконфигурации Spring Boot, переносят
+ * {@link com.bank.userservice.dto.auth.RequestContext} и MDC в свои потоки.
+ *
+ * <p>В режиме виртуальных потоков ({@code app.threads.virtual.enabled=true}) блокирующие
+ * операции выполняются каждая в своем виртуальном потоке, пул хеширования не меняется.
+ */
+@Configuration
+public class AsyncConfig {
+    /** Выполняет отклоненную задачу в вызывающем потоке, даже если пул уже остановлен */
+    private static final RejectedExecutionHandler RUN_IN_CALLER = (task, pool) -> task.run();
+
+    /**
+     * Создает декоратор задач, переносящий контекст запроса в потоки пулов.
+     *
+     * @return декоратор задач
+     */
+    @Bean
+    public TaskDecorator requestContextTaskDecorator() {
+        return new RequestContextTaskDecorator();
+    }
+
+    /**
+     * Создает пул для блокирующих операций ввода-вывода (CAPTCHA, запросы к БД).
+     *
+     * @param coreSize     базовое количество потоков
+     * @param maxSize      максимальное количество потоков
+     * @param queueCapacity размер очереди задач
+     * @param virtualThreads выполнять операции в виртуальных потоках вместо пула
+     * @return пул потоков
+     */
+    @Bean
+    public AsyncTaskExecutor authIoExecutor(
+            @Value("${app.executor.io.core-size:16}") int coreSize,
+            @Value("${app.executor.io.max-size:64}") int maxSize,
+            @Value("${app.executor.io.queue-capacity:200}") int queueCapacity,
+            @Value("${app.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("auth-io-vt-"));
+            executor.setTaskDecorator(requestContextTaskDecorator());
+            return executor;
+        }
+        return createExecutor("auth-io-", coreSize, maxSize, queueCapacity, requestContextTaskDecorator());
+    }
+
+    /**
+     * Создает пул для хеширования паролей (по умолчанию по числу процессоров).
+     *
+     * @param size          количество потоков (0 - по числу процессоров)
+     * @param queueCapacity размер очереди задач
+     * @return пул потоков
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${app.executor.password-hash.size:0}") int size,
+            @Value("${app.executor.password-hash.queue-capacity:100}") int queueCapacity) {
+        int threads = size > 0 ? size : Runtime.getRuntime().availableProcessors();
+        return createExecutor("password-hash-", threads, threads, queueCapacity, requestContextTaskDecorator());
+    }
+
+    private ThreadPoolTaskExecutor createExecutor(String prefix, int coreSize, int maxSize, int queueCapacity,
+                                                  TaskDecorator taskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(RUN_IN_CALLER);
+        executor.setTaskDecorator(taskDecorator);
+        return executor;
+    }
+}
@@ -0,0 +1,192 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.concurrent.AdaptiveConcurrencyLimiter;
+import com.bank.userservice.dto.auth.ErrorDetailsDto;
+import com.bank.userservice.service.IntegrationLogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Фильтр, ограничивающий число одновременных запросов к {@code /api/auth/*}.
+ *
+ * <p>Для каждой конечной точки ({@link #ENDPOINTS}) свой {@link AdaptiveConcurrencyLimiter}:
+ * медленная регистрация не отнимает разрешения у входа. Запрос сверх предела сразу
+ * получает 503 с заголовком {@code Retry-After}, не попадая в очередь Tomcat и пулы
+ * потоков, и не записывается в интеграционные логи, чтобы не нагружать БД.
+ *
+ * <p>Разрешение удерживается до отправки ответа, в том числе асинхронного: при async
+ * обработке оно освобождается по завершении {@code AsyncContext}, а истечение времени
+ * ожидания уменьшает предел.
+ *
+ * <p>Метрики с тегом {@code endpoint}: {@code app.concurrency.limit},
+ * {@code app.concurrency.in-flight} и {@code app.concurrency.requests} с тегом
+ * {@code outcome} ({@code accepted}, {@code rejected}).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    /** Путь контроллера аутентификации */
+    static final String PATH_PREFIX = "/api/auth/";
+    /** Конечные точки с собственным пределом */
+    static final List<String> ENDPOINTS = List.of("register", "login", "verify-email");
+
+    private final Map<String, EndpointLimit> limits;
+    private final IntegrationLogService integrationLogService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    /**
+     * @param integrationLogService формирование ответа с ошибкой
+     * @param objectMapper сериализация ответа с ошибкой
+     * @param meterRegistry реестр метрик
+     * @param enabled включено ли ограничение
+     * @param initialLimit начальный предел каждой конечной точки
+     * @param minLimit минимальный предел
+     * @param maxLimit максимальный предел
+     * @param tolerance допустимый рост задержки, при котором предел не уменьшается
+     */
+    public ConcurrencyLimitFilter(IntegrationLogService integrationLogService,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+                                  @Value("${app.concurrency-limit.tolerance:1.5}") double tolerance) {
+        this.integrationLogService = integrationLogService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.limits = ENDPOINTS.stream().collect(Collectors.toUnmodifiableMap(Function.identity(),
+                endpoint -> EndpointLimit.register(endpoint,
+                        new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance), meterRegistry)));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String endpoint = endpoint(request);
+        return !enabled || endpoint == null || !limits.containsKey(endpoint);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        EndpointLimit limit = limits.get(endpoint(request));
+        if (!limit.limiter().tryAcquire()) {
+            limit.rejected().increment();
+            reject(response);
+            return;
+        }
+        limit.accepted().increment();
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limit.limiter(), started));
+            } else {
+                limit.limiter().release(System.nanoTime() - started, false);
+            }
+        }
+    }
+
+    /**
+     * Определяет конечную точку по пути запроса.
+     *
+     * @return имя конечной точки или null, если путь не относится к контроллеру аутентификации
+     */
+    private static String endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith(PATH_PREFIX) ? path.substring(PATH_PREFIX.length()) : null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDetailsDto(integrationLogService
+                .mapToErrorResponseDto(HttpStatus.SERVICE_UNAVAILABLE, "Service is overloaded, try again later")));
+    }
+
+    /**
+     * Предел конечной точки и его счетчики.
+     */
+    private record EndpointLimit(AdaptiveConcurrencyLimiter limiter, Counter accepted, Counter rejected) {
+        static EndpointLimit register(String endpoint, AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+            Gauge.builder("app.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            Gauge.builder("app.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests currently holding a concurrency permit")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            return new EndpointLimit(limiter, requests(endpoint, "accepted", meterRegistry),
+                    requests(endpoint, "rejected", meterRegistry));
+        }
+
+        private static Counter requests(String endpoint, String outcome, MeterRegistry meterRegistry) {
+            return Counter.builder("app.concurrency.requests")
+                    .description("Requests accepted or rejected by the concurrency limit")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Освобождает разрешение после отправки асинхронного ответа.
+     *
+     * <p>{@code onComplete} вызывается один раз при любом исходе, в том числе
+     * после истечения времени ожидания и ошибки.
+     */
+    private static final class ReleaseOnComplete implements AsyncListener {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long started;
+        private volatile boolean timedOut;
+
+        ReleaseOnComplete(AdaptiveConcurrencyLimiter limiter, long started) {
+            this.limiter = limiter;
+            this.started = started;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(System.nanoTime() - started, timedOut);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            timedOut = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.datasource.QueryMetricsListener;
+import com.bank.userservice.dto.auth.RequestContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Конфигурационный класс профилирования SQL запросов.
+ *
+ * <p>Основной DataSource приложения ({@code dataSource}: пул из автоконфигурации или
+ * маршрутизатор реплик) оборачивается в datasource-proxy, который передает каждый
+ * запрос и чтение строк в {@link QueryMetricsListener}. Время ожидания соединения
+ * в пуле публикует сам Hikari ({@code hikaricp.connections.acquire}), время методов
+ * репозиториев - Spring Boot ({@code spring.data.repository.invocations}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceProxyConfig {
+    /** Имя оборачиваемого DataSource */
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    /**
+     * Создает слушатель запросов.
+     *
+     * @param meterRegistry реестр метрик
+     * @param requestContext контекст запроса
+     * @param slowQueryThresholdMs порог медленного запроса
+     * @return слушатель запросов
+     */
+    @Bean
+    public QueryMetricsListener queryMetricsListener(
+            MeterRegistry meterRegistry,
+            RequestContext requestContext,
+            @Value("${app.db.profiling.slow-query-threshold-ms:200}") long slowQueryThresholdMs) {
+        return new QueryMetricsListener(meterRegistry, requestContext, slowQueryThresholdMs);
+    }
+
+    /**
+     * Оборачивает основной DataSource в прокси с {@link QueryMetricsListener}.
+     *
+     * <p>Метод статический, чтобы пост-процессор создавался до остальных бинов конфигурации.
+     *
+     * @param listener слушатель запросов (получается при создании DataSource)
+     * @return пост-процессор бинов
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<QueryMetricsListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!DATA_SOURCE_BEAN.equals(beanName)
+                        || !(bean instanceof DataSource dataSource)
+                        || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                QueryMetricsListener queryMetricsListener = listener.getObject();
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(queryMetricsListener)
+                        .methodListener(queryMetricsListener)
+                        .proxyResultSet()
+                        .build();
+            }
+        };
+    }
+}
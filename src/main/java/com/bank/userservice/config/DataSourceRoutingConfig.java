@@ -0,0 +1,114 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Конфигурационный класс маршрутизации запросов между основной БД и репликами.
+ *
+ * <p>Включается, если задан {@code app.datasource.replica.urls}. Без него используется
+ * единственный DataSource из автоконфигурации Spring Boot. Транзакции только для чтения
+ * (вход, загрузка пользователя по JWT, проверка занятости username и email) выполняются
+ * на репликах, остальные - на основной БД.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class DataSourceRoutingConfig {
+
+    /**
+     * Создает пул соединений с основной БД из настроек {@code spring.datasource}.
+     *
+     * @param properties настройки основной БД
+     * @return пул соединений с основной БД
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Создает маршрутизирующий DataSource с пулами соединений к репликам.
+     *
+     * @param primary пул соединений с основной БД
+     * @param properties настройки основной БД (учетные данные по умолчанию)
+     * @param meterRegistry реестр метрик
+     * @param urls JDBC URL реплик
+     * @param username пользователь реплик
+     * @param password пароль реплик
+     * @param maxPoolSize размер пула соединений каждой реплики
+     * @param maxLagMs допустимое отставание реплики
+     * @param checkIntervalMs интервал проверки отставания
+     * @return маршрутизирующий DataSource
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica.urls}") List<String> urls,
+            @Value("${app.datasource.replica.username:}") String username,
+            @Value("${app.datasource.replica.password:}") String password,
+            @Value("${app.datasource.replica.max-pool-size:10}") int maxPoolSize,
+            @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMs,
+            @Value("${app.datasource.replica.check-interval-ms:2000}") long checkIntervalMs) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            String name = "replica-" + replicas.size();
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username.isBlank() ? properties.determineUsername() : username);
+            replica.setPassword(password.isBlank() ? properties.determinePassword() : password);
+            replica.setMaximumPoolSize(maxPoolSize);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            // Приложение должно стартовать и при недоступной реплике
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(name, replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas,
+                Duration.ofMillis(maxLagMs), Duration.ofMillis(checkIntervalMs));
+        replicas.keySet().forEach(name -> Gauge.builder("app.datasource.replica.lag", routing,
+                        r -> r.getReplicaLagMs(name) == null ? Double.NaN : r.getReplicaLagMs(name))
+                .tag("replica", name)
+                .baseUnit("milliseconds")
+                .description("Replication lag, NaN while the replica is unavailable")
+                .register(meterRegistry));
+        return routing;
+    }
+
+    /**
+     * Создает основной DataSource приложения.
+     *
+     * <p>Соединение откладывается до первого запроса, когда признак read-only
+     * транзакции уже выставлен и маршрутизация может его учесть.
+     *
+     * @param routing маршрутизирующий DataSource
+     * @return DataSource для JPA, JdbcTemplate и Liquibase
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
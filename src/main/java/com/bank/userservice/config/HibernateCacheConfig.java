@@ -0,0 +1,77 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.model.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Конфигурационный класс кэша второго уровня Hibernate.
+ *
+ * <p>Кэш локален для экземпляра сервиса (Caffeine через JCache). Записи пользователей
+ * и результаты запросов живут ограниченное время: изменения, сделанные другим
+ * экземпляром, становятся видны не позже, чем через {@code app.cache.users.ttl-seconds}.
+ * Изменения на этом экземпляре вытесняют записи сразу.
+ *
+ * <p>Все регионы создаются здесь; регион, не описанный в этом классе, приводит
+ * к ошибке при старте.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    /**
+     * Создает менеджер кэшей с регионами пользователей и запросов.
+     *
+     * @param maxSize максимальное количество записей в каждом регионе
+     * @param ttlSeconds время жизни записи
+     * @return менеджер кэшей
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${app.cache.users.max-size:10000}") long maxSize,
+            @Value("${app.cache.users.ttl-seconds:60}") long ttlSeconds) {
+        // Собственный провайдер, чтобы менеджер не разделялся с другими контекстами в той же JVM
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+
+        cacheManager.createCache(User.CACHE_REGION, boundedRegion(maxSize, ttl));
+        cacheManager.createCache(User.NATURAL_ID_CACHE_REGION, boundedRegion(maxSize, ttl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                boundedRegion(maxSize, ttl));
+        // Метки времени изменения таблиц: по одной записи на таблицу, вытеснять их нельзя,
+        // иначе устаревшие результаты запросов будут считаться актуальными
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    /**
+     * Передает менеджер кэшей в Hibernate.
+     *
+     * @param hibernateCacheManager менеджер кэшей
+     * @return настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> boundedRegion(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
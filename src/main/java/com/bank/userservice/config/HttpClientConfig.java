@@ -0,0 +1,94 @@
+package com.bank.userservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Конфигурационный класс HTTP клиента для внешних интеграций.
+ * Настраивает пул соединений, keep-alive и таймауты для запросов к reCAPTCHA.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Создает пул HTTP соединений с ограничениями на общее количество и на маршрут.
+     *
+     * @param maxConnections      максимальное количество соединений в пуле
+     * @param maxConnectionsPerRoute максимальное количество соединений на один хост
+     * @param connectTimeoutMs    таймаут установки соединения
+     * @param readTimeoutMs       таймаут чтения ответа
+     * @param meterRegistry       реестр метрик для публикации состояния пула
+     * @return настроенный пул соединений
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager recaptchaConnectionManager(
+            @Value("${recaptcha.http.max-connections:50}") int maxConnections,
+            @Value("${recaptcha.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+            @Value("${recaptcha.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${recaptcha.http.read-timeout-ms:3000}") long readTimeoutMs,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "recaptcha")
+                .bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Создает HTTP клиент с keep-alive и вытеснением простаивающих соединений.
+     *
+     * @param connectionManager          пул соединений
+     * @param readTimeoutMs              таймаут ожидания ответа
+     * @param connectionRequestTimeoutMs таймаут ожидания свободного соединения из пула
+     * @param keepAliveMs                время жизни простаивающего соединения
+     * @return HTTP клиент
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient recaptchaHttpClient(
+            PoolingHttpClientConnectionManager connectionManager,
+            @Value("${recaptcha.http.read-timeout-ms:3000}") long readTimeoutMs,
+            @Value("${recaptcha.http.connection-request-timeout-ms:1000}") long connectionRequestTimeoutMs,
+            @Value("${recaptcha.http.keep-alive-ms:30000}") long keepAliveMs) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAliveMs))
+                .build();
+    }
+
+    /**
+     * Создает RestTemplate поверх пула соединений.
+     *
+     * @param httpClient HTTP клиент
+     * @return RestTemplate для запросов к reCAPTCHA
+     */
+    @Bean
+    public RestTemplate recaptchaRestTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.id.IdGenerator;
+import com.bank.userservice.id.MonotonicIdGenerator;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Регистрация генератора идентификаторов по умолчанию.
+ *
+ * <p>Класс подключается как автоконфигурация (META-INF/spring/...AutoConfiguration.imports),
+ * а не сканированием компонентов: автоконфигурации обрабатываются после бинов приложения,
+ * поэтому условие видит собственный {@link IdGenerator}, объявленный в любом классе приложения.
+ * Условие проверяется при AOT-обработке, поэтому замена должна быть в сборке образа.
+ */
+@AutoConfiguration
+public class IdGeneratorAutoConfiguration {
+
+    /**
+     * Создает генератор идентификаторов, если в приложении не объявлен собственный.
+     *
+     * @return генератор упорядоченных по времени идентификаторов
+     */
+    @Bean
+    @ConditionalOnMissingBean(IdGenerator.class)
+    public IdGenerator idGenerator() {
+        return new MonotonicIdGenerator();
+    }
+}
@@ -3,16 +3,25 @@ package com.bank.userservice.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * Конфигурационный класс для настройки Jackson ObjectMapper.
  * Настраивает сериализацию дат и форматирование вывода JSON.
+ *
+ * <p>ObjectMapper используется и для HTTP-ответов, и для {@code IntegrationLog.responseData},
+ * поэтому по умолчанию JSON пишется компактно. Форматирование включается только
+ * для отладки свойством {@code app.json.pretty-print}.
  */
 @Configuration
 public class JacksonConfig {
 
+    /** Форматировать JSON с отступами (только для отладки) */
+    @Value("${app.json.pretty-print:false}")
+    private boolean prettyPrint;
+
     /**
      * Создает и настраивает ObjectMapper для корректной работы с датами и JSON.
      *
@@ -21,7 +30,7 @@ public class JacksonConfig {
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);  // Красивое форматирование JSON
+        mapper.configure(SerializationFeature.INDENT_OUTPUT, prettyPrint);  // Красивое форматирование JSON
         mapper.registerModule(new JavaTimeModule());        // Поддержка Java 8 Time API
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // Использовать строковое представление дат
         return mapper;
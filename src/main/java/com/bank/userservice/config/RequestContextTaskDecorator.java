@@ -0,0 +1,26 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Переносит {@link RequestContext} и MDC из потока, поставившего задачу, в поток пула.
+ *
+ * <p>После выполнения задачи восстанавливается прежний контекст потока пула,
+ * поэтому rqid одного запроса не попадает в задачи другого.
+ */
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestContext.Snapshot snapshot = RequestContext.capture();
+        return () -> {
+            RequestContext.Snapshot previous = snapshot.apply();
+            try {
+                runnable.run();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import com.bank.userservice.id.IdGenerator;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Фильтр, заполняющий {@link RequestContext} до вызова контроллеров.
+ *
+ * <p>rqid берется из заголовка {@value #HEADER}, затем из параметра {@code rqid};
+ * если клиент его не передал, генерируется новый ({@link IdGenerator}). Контроллеры,
+ * получающие rqid в теле запроса, перезаписывают его, если он там указан. После ответа контекст очищается, чтобы он
+ * не достался следующему запросу в том же потоке.
+ *
+ * <p>Асинхронный ответ контроллера формируется в другом потоке контейнера
+ * (async dispatch). Перед освобождением потока rqid сохраняется в атрибуте
+ * запроса и восстанавливается при async dispatch, чтобы обработчики ошибок
+ * и журналы получили тот же rqid.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestIdFilter extends OncePerRequestFilter {
+    /** Заголовок с идентификатором запроса */
+    public static final String HEADER = "X-Request-Id";
+    /** Префикс rqid, сгенерированного сервером */
+    public static final String RQID_PREFIX = "RQ_";
+    /** Атрибут запроса с rqid на время асинхронной обработки */
+    static final String RQID_ATTRIBUTE = RequestIdFilter.class.getName() + ".rqid";
+
+    private final RequestContext requestContext;
+    private final IdGenerator idGenerator;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String rqid = isAsyncDispatch(request) ? (String) request.getAttribute(RQID_ATTRIBUTE) : null;
+        if (rqid == null || rqid.isBlank()) {
+            rqid = request.getHeader(HEADER);
+        }
+        if (rqid == null || rqid.isBlank()) {
+            rqid = request.getParameter("rqid");
+        }
+        if (rqid == null || rqid.isBlank()) {
+            rqid = idGenerator.nextId(RQID_PREFIX);
+        }
+
+        requestContext.setRqid(rqid);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Контроллер мог заменить rqid значением из тела запроса
+                request.setAttribute(RQID_ATTRIBUTE, requestContext.getRqid());
+            }
+            requestContext.clear();
+        }
+    }
+
+    /**
+     * Фильтр выполняется и при async dispatch, чтобы восстановить rqid.
+     *
+     * @return false
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
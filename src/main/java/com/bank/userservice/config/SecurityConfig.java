@@ -1,6 +1,9 @@
 package com.bank.userservice.config;
 
+import com.bank.userservice.security.OffloadingPasswordEncoder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -11,6 +14,8 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.util.concurrent.Executor;
+
 /**
  * Конфигурационный класс безопасности Spring Security.
  * Настраивает аутентификацию, авторизацию и защиту от CSRF.
@@ -23,12 +28,19 @@ public class SecurityConfig {
 
     /**
      * Создает кодировщик паролей BCrypt с силой 12.
+     * В режиме виртуальных потоков хеширование выносится в пул {@code passwordHashExecutor},
+     * чтобы не занимать потоки-носители.
      *
+     * @param passwordHashExecutor пул для хеширования паролей
+     * @param virtualThreads включен ли режим виртуальных потоков
      * @return экземпляр PasswordEncoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12); // В соответствии со стандартом OWASP
+    public PasswordEncoder passwordEncoder(
+            @Qualifier("passwordHashExecutor") Executor passwordHashExecutor,
+            @Value("${app.threads.virtual.enabled:false}") boolean virtualThreads) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(12); // В соответствии со стандартом OWASP
+        return virtualThreads ? new OffloadingPasswordEncoder(bcrypt, passwordHashExecutor) : bcrypt;
     }
 
     /**
@@ -0,0 +1,72 @@
+package com.bank.userservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Конфигурационный класс раздачи статических ресурсов страницы входа.
+ *
+ * <p>При сборке (maven-antrun-plugin, фаза process-resources) скрипты копируются
+ * в {@code static/assets/} с MD5 содержимого в имени, ссылки в {@code index.html}
+ * переписываются, и для каждого файла создается gzip-копия. Поэтому:
+ * <ul>
+ *   <li>{@code /assets/**} кэшируются браузером на год без повторных проверок:
+ *   измененный файл получает новое имя</li>
+ *   <li>{@code index.html} проверяется при каждой загрузке страницы по ETag
+ *   и Last-Modified, неизмененная страница возвращается ответом 304</li>
+ *   <li>при {@code Accept-Encoding: gzip} отдается заранее сжатая копия</li>
+ * </ul>
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+    /** Расположение статических ресурсов */
+    private static final String STATIC_LOCATION = "classpath:/static/";
+
+    /** Срок кэширования ресурсов с отпечатком содержимого */
+    @Value("${app.static.assets-max-age:365d}")
+    private Duration assetsMaxAge;
+
+    /**
+     * Регистрирует обработчики статических ресурсов вместо обработчика Spring Boot по умолчанию.
+     *
+     * @param registry реестр обработчиков ресурсов
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/assets/**")
+                .addResourceLocations(STATIC_LOCATION + "assets/")
+                .setCacheControl(CacheControl.maxAge(assetsMaxAge).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+        registry.addResourceHandler("/**")
+                .addResourceLocations(STATIC_LOCATION)
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+
+    /**
+     * Добавляет ETag к HTML-странице.
+     *
+     * <p>Фильтр буферизует ответ целиком, поэтому применяется только к странице,
+     * а не к ресурсам {@code /assets/**}, которые не проверяются повторно.
+     *
+     * @return регистрация фильтра
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> pageEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/", "/index.html");
+        return registration;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bank.userservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Завершает приложение сразу после старта при обучающем запуске.
+ *
+ * <p>Обучающий запуск выполняется при сборке образа (см. {@code Dockerfile.fast-startup}):
+ * JVM с {@code -XX:ArchiveClassesAtExit} поднимает контекст и при выходе сохраняет
+ * архив CDS со всеми загруженными классами. Следующие запуски читают классы из архива
+ * вместо разбора jar-файлов.
+ *
+ * <p>Признак проверяется во время выполнения, а не условием на бин: при AOT-обработке
+ * условия {@code @ConditionalOnProperty} вычисляются при сборке.
+ */
+@Slf4j
+@Component
+public class TrainingRunExitListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final boolean trainingRun;
+
+    /**
+     * @param trainingRun признак обучающего запуска
+     */
+    public TrainingRunExitListener(@Value("${app.startup.training-run:false}") boolean trainingRun) {
+        this.trainingRun = trainingRun;
+    }
+
+    /**
+     * Останавливает контекст и JVM, если это обучающий запуск.
+     *
+     * @param event событие готовности приложения
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (trainingRun) {
+            log.info("Training run finished, exiting");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.concurrent.VirtualThreadPinningMonitor;
+import com.bank.userservice.concurrent.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+
+/**
+ * Конфигурационный класс режима виртуальных потоков.
+ *
+ * <p>Включается свойством {@code app.threads.virtual.enabled=true} и требует Java 21.
+ * HTTP-запросы Tomcat и блокирующие шаги регистрации ({@code authIoExecutor}) выполняются
+ * в виртуальных потоках, поэтому число одновременных запросов, ожидающих БД, SMTP
+ * или CAPTCHA, не ограничено размером пула. Хеширование паролей остается в ограниченном
+ * пуле платформенных потоков {@code passwordHashExecutor}
+ * (см. {@link com.bank.userservice.security.OffloadingPasswordEncoder}).
+ *
+ * <p>Пропускную способность по-прежнему ограничивают пулы соединений с БД.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("app.threads.virtual.enabled=true requires Java 21 or newer, running on "
+                    + Runtime.version());
+        }
+    }
+
+    /**
+     * Заменяет пул потоков Tomcat на выполнение каждого запроса в новом виртуальном потоке.
+     *
+     * @return настройка обработчика протокола Tomcat
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("tomcat-vt-")));
+    }
+
+    /**
+     * Создает монитор закрепления виртуальных потоков.
+     *
+     * @param meterRegistry реестр метрик
+     * @param thresholdMs минимальная длительность закрепления, о которой сообщается
+     * @return монитор закрепления
+     */
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${app.threads.virtual.pinned-threshold-ms:20}") long thresholdMs) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(thresholdMs));
+    }
+}
@@ -4,23 +4,24 @@ import com.bank.userservice.dto.EmailVerificationDto;
 import com.bank.userservice.dto.LoginDto;
 import com.bank.userservice.dto.RegistrationDto;
 import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
 
 import com.bank.userservice.dto.auth.RequestContext;
 import com.bank.userservice.service.AuthService;
+import com.bank.userservice.service.IdempotencyService;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import jakarta.mail.MessagingException;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
 
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Контроллер для обработки запросов аутентификации.
@@ -39,51 +40,54 @@ import java.io.IOException;
 public class AuthController {
     private final AuthService authService;
     private final RequestContext requestContext;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Регистрирует нового пользователя в системе.
      *
+     * <p>Ответ формируется асинхронно: поток контейнера освобождается на время
+     * проверки капчи, хеширования пароля и отправки письма. Повтор запроса с тем же
+     * rqid получает ответ первого выполнения (см. {@link IdempotencyService}).
+     *
      * @param registrationDto DTO с данными регистрации
      * @return AuthResponseDto с результатом регистрации
-     * @throws JsonProcessingException при ошибках обработки JSON
-     * @throws MessagingException      при ошибках отправки email подтверждения
      */
     @PostMapping("/register")
-    public ResponseEntity<AuthResponseDto> register(@Valid @RequestBody RegistrationDto registrationDto) throws JsonProcessingException, MessagingException {
-        try {
-            //requestContext.setRequestDto(requestDto);
-            MDC.put("rqid", String.valueOf(registrationDto.getRqid()));
-            requestContext.setRqid(registrationDto.getRqid());
-
-            AuthResponseDto responseDto = authService.register(registrationDto);
-
-            return ResponseEntity.ok(responseDto);
-        } finally {
-            MDC.remove("rqid");
-        }
+    public CompletableFuture<ResponseEntity<AuthResponseDto<AuthResultDto>>> register(@Valid @RequestBody RegistrationDto registrationDto) {
+        //requestContext.setRequestDto(requestDto);
+        String clientRqid = registrationDto.getRqid();
+        registrationDto.setRqid(bindRqid(clientRqid));
+
+        return idempotencyService.execute(IdempotencyService.REGISTER,
+                        clientRqid,
+                        List.of(String.valueOf(registrationDto.getUsername()),
+                                String.valueOf(registrationDto.getEmail()),
+                                String.valueOf(registrationDto.getPassword())),
+                        () -> authService.registerAsync(registrationDto))
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
      * Аутентифицирует пользователя в системе.
      *
+     * <p>Ответ формируется асинхронно: поток контейнера освобождается на время
+     * запроса к БД и сравнения хешей пароля. Повтор запроса с тем же rqid получает
+     * ответ первого выполнения без повторного уведомления о входе.
+     *
      * @param requestDto DTO с данными входа
      * @return AuthResponseDto с данными аутентифицированного пользователя
-     * @throws JsonProcessingException при ошибках обработки JSON
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponseDto> login(@Valid @RequestBody LoginDto requestDto) throws JsonProcessingException {
-        try {
-            //requestContext.setRequestDto(requestDto);
-            MDC.put("rqid", String.valueOf(requestDto.getRqid()));
-            requestContext.setRqid(requestDto.getRqid());
-
-            AuthResponseDto responseDto = authService.login(requestDto);
-
-            return ResponseEntity.ok(responseDto);
-        } finally {
-            MDC.remove("rqid");
-        }
-
+    public CompletableFuture<ResponseEntity<AuthResponseDto<AuthResultDto>>> login(@Valid @RequestBody LoginDto requestDto) {
+        //requestContext.setRequestDto(requestDto);
+        String clientRqid = requestDto.getRqid();
+        requestDto.setRqid(bindRqid(clientRqid));
+
+        return idempotencyService.execute(IdempotencyService.LOGIN,
+                        clientRqid,
+                        List.of(String.valueOf(requestDto.getEmail()), String.valueOf(requestDto.getPassword())),
+                        () -> authService.loginAsync(requestDto))
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -103,19 +107,32 @@ public class AuthController {
             @RequestParam String rqid,
             HttpServletResponse response) throws IOException {
 
-        try {
-            MDC.put("rqid", rqid);
-            requestContext.setRqid(rqid);
+        requestContext.setRqid(rqid);
+
+        EmailVerificationDto dto = new EmailVerificationDto(rqid, token, email);
+        authService.verifyEmail(dto);
 
-            EmailVerificationDto dto = new EmailVerificationDto(rqid, token, email);
-            authService.verifyEmail(dto);
+        // Перенаправляем на страницу успеха
+        response.sendRedirect("http://localhost:8080/email-verified");
+        return null;
+    }
 
-            // Перенаправляем на страницу успеха
-            response.sendRedirect("http://localhost:8080/email-verified");
-            return null;
-        } finally {
-            MDC.remove("rqid");
+    /**
+     * Устанавливает rqid из тела запроса в контекст.
+     *
+     * <p>Если клиент не передал rqid, используется rqid, сгенерированный {@code RequestIdFilter},
+     * чтобы логи запроса не содержали пустой rqid. Повтор по такому rqid невозможен,
+     * поэтому ответ для повтора не сохраняется.
+     *
+     * @param rqid rqid из тела запроса
+     * @return rqid запроса
+     */
+    private String bindRqid(String rqid) {
+        if (rqid == null || rqid.isBlank()) {
+            return requestContext.getRqid();
         }
+        requestContext.setRqid(rqid);
+        return rqid;
     }
 }
 
@@ -0,0 +1,50 @@
+package com.bank.userservice.controller;
+
+import com.bank.userservice.dto.MathChallengeDto;
+import com.bank.userservice.dto.PowChallengeDto;
+import com.bank.userservice.service.CaptchaService;
+import com.bank.userservice.service.ProofOfWorkService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Контроллер для выдачи CAPTCHA-задач.
+ */
+@RestController
+@RequestMapping("/api/captcha")
+@RequiredArgsConstructor
+public class CaptchaController {
+    private final CaptchaService captchaService;
+    private final ProofOfWorkService proofOfWorkService;
+
+    /**
+     * Выдает новую математическую задачу с подписанным токеном.
+     *
+     * @return задача и токен для последующей проверки при регистрации
+     */
+    @GetMapping("/challenge")
+    public ResponseEntity<MathChallengeDto> challenge() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(captchaService.createMathChallenge());
+    }
+
+    /**
+     * Выдает задачу proof-of-work с текущей сложностью.
+     *
+     * @return задача или 404, если режим proof-of-work выключен
+     */
+    @GetMapping("/pow")
+    public ResponseEntity<PowChallengeDto> proofOfWork() {
+        if (!proofOfWorkService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(proofOfWorkService.createChallenge());
+    }
+}
@@ -0,0 +1,146 @@
+package com.bank.userservice.datasource;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Слушатель JDBC запросов, собирающий метрики и журнал медленных запросов.
+ *
+ * <p>Метрики помечаются типом запроса и методом репозитория, в котором он выполнен
+ * (см. {@link RepositoryMethodAspect}):
+ * <ul>
+ *   <li>{@code app.db.query} - время выполнения запроса</li>
+ *   <li>{@code app.db.rows} - количество прочитанных и измененных строк</li>
+ * </ul>
+ *
+ * <p>Запросы дольше порога пишутся в журнал с rqid, по которому их можно связать
+ * с записями {@code application_logs}. Параметры запросов не логируются: среди них
+ * есть хеши паролей и токены.
+ */
+@Slf4j
+public class QueryMetricsListener implements QueryExecutionListener, MethodExecutionListener {
+    /** Ключ времени начала запроса в {@link ExecutionInfo} */
+    private static final String START_NANOS = QueryMetricsListener.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+    private final RequestContext requestContext;
+    /** Порог медленного запроса в наносекундах */
+    private final long slowQueryThresholdNanos;
+    /** Счетчики прочитанных строк по методам репозиториев (ResultSet.next вызывается на каждую строку) */
+    private final Map<String, Counter> selectedRows = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry реестр метрик
+     * @param requestContext контекст запроса
+     * @param slowQueryThresholdMs порог медленного запроса в миллисекундах
+     */
+    public QueryMetricsListener(MeterRegistry meterRegistry, RequestContext requestContext,
+                                long slowQueryThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.requestContext = requestContext;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMs);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsedNanos = start == null
+                ? TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime())
+                : System.nanoTime() - start;
+        String method = RepositoryMethodAspect.currentMethod();
+        String type = queryInfoList.isEmpty() ? "other" : queryType(queryInfoList.get(0).getQuery());
+
+        Timer.builder("app.db.query")
+                .description("JDBC statement execution time")
+                .tag("type", type)
+                .tag("method", method)
+                .tag("outcome", execInfo.isSuccess() ? "success" : "error")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        long updatedRows = updatedRows(execInfo.getResult());
+        if (updatedRows > 0) {
+            rowsCounter(type, method).increment(updatedRows);
+        }
+
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            log.warn("Slow query: {} ms, method {}, rqid {}: {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), method, requestContext.getRqid(),
+                    queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    /**
+     * Считает строки, прочитанные из ResultSet.
+     *
+     * @param executionContext вызов метода JDBC объекта
+     */
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            selectedRows.computeIfAbsent(RepositoryMethodAspect.currentMethod(),
+                    method -> rowsCounter("select", method)).increment();
+        }
+    }
+
+    private Counter rowsCounter(String type, String method) {
+        return Counter.builder("app.db.rows")
+                .description("Rows read from result sets or changed by statements")
+                .tag("type", type)
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+
+    private static String queryType(String query) {
+        return QueryUtils.getQueryType(query).name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param result результат executeUpdate или executeBatch
+     * @return количество измененных строк, 0 для остальных запросов
+     */
+    private static long updatedRows(Object result) {
+        if (result instanceof Number count) {
+            return Math.max(count.longValue(), 0);
+        }
+        long total = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,250 @@
+package com.bank.userservice.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource, направляющий транзакции только для чтения на реплики, а остальные запросы на основную БД.
+ *
+ * <p>Реплика выбирается по кругу среди доступных. Фоновый поток периодически измеряет
+ * отставание каждой реплики; реплика, отстающая больше допустимого или недоступная,
+ * исключается из выбора до следующей успешной проверки. Если доступных реплик нет
+ * или соединение с репликой не удалось получить, запрос выполняется на основной БД.
+ *
+ * <p>Признак read-only выставляется менеджером транзакций уже после получения соединения,
+ * поэтому DataSource нужно оборачивать в
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    /** Ключ основной БД */
+    public static final String PRIMARY = "primary";
+
+    /**
+     * Отставание реплики в миллисекундах. Основная БД и реплика, воспроизведшая
+     * весь полученный WAL, считаются не отстающими. Реплика без активного приема WAL
+     * ({@code pg_stat_wal_receiver} не в статусе {@code streaming}) получает NULL и
+     * исключается: потеряв связь с основной БД, она перестает получать WAL, и равенство
+     * полученной и воспроизведенной позиций ничего не говорит о ее отставании.
+     * Статус виден пользователю с правами {@code pg_read_all_stats}.
+     */
+    static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000
+            END""";
+
+    /** Реплики по именам */
+    private final Map<String, DataSource> replicas;
+    /** Отставание реплик в миллисекундах, отсутствие значения означает, что реплика недоступна */
+    private final Map<String, Double> replicaLagMs = new ConcurrentHashMap<>();
+    /** Допустимое отставание реплики */
+    private final Duration maxLag;
+    /** Интервал проверки отставания */
+    private final Duration checkInterval;
+    /** Счетчик для выбора реплики по кругу */
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    /** Поток проверки отставания реплик */
+    private final ScheduledExecutorService lagCheckExecutor;
+
+    /**
+     * @param primary основная БД
+     * @param replicas реплики по именам
+     * @param maxLag допустимое отставание реплики
+     * @param checkInterval интервал проверки отставания
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Duration maxLag, Duration checkInterval) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.lagCheckExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Инициализирует DataSource и запускает проверку отставания реплик.
+     * До первой проверки все запросы выполняются на основной БД.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagCheckExecutor.scheduleWithFixedDelay(this::checkReplicas,
+                checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Выбирает реплику для транзакции только для чтения, иначе основную БД.
+     *
+     * @return ключ выбранного DataSource
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        List<String> available = availableReplicas();
+        if (available.isEmpty()) {
+            return PRIMARY;
+        }
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size()));
+    }
+
+    /**
+     * Получает соединение с выбранной БД, при ошибке соединения с репликой - с основной.
+     *
+     * @return соединение
+     * @throws SQLException если не удалось получить соединение с основной БД
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary().getConnection();
+        }
+        try {
+            return getResolvedDataSources().get(key).getConnection();
+        } catch (SQLException e) {
+            markUnavailable((String) key, e);
+            return primary().getConnection();
+        }
+    }
+
+    /**
+     * Получает соединение с выбранной БД с явными учетными данными.
+     *
+     * @param username имя пользователя
+     * @param password пароль
+     * @return соединение
+     * @throws SQLException если не удалось получить соединение с основной БД
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary().getConnection(username, password);
+        }
+        try {
+            return getResolvedDataSources().get(key).getConnection(username, password);
+        } catch (SQLException e) {
+            markUnavailable((String) key, e);
+            return primary().getConnection(username, password);
+        }
+    }
+
+    /**
+     * Измеряет отставание всех реплик и обновляет список доступных.
+     */
+    void checkReplicas() {
+        replicas.forEach((name, replica) -> {
+            try {
+                Double lag = queryLag(replica);
+                Double previous = lag == null ? replicaLagMs.remove(name) : replicaLagMs.put(name, lag);
+                boolean wasAvailable = isWithinLag(previous);
+                boolean available = isWithinLag(lag);
+                if (wasAvailable && !available) {
+                    log.warn("Replica '{}' excluded from routing: lag {} ms exceeds {} ms",
+                            name, lag == null ? "unknown" : lag, maxLag.toMillis());
+                } else if (!wasAvailable && available) {
+                    log.info("Replica '{}' available for read-only transactions, lag {} ms", name, lag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Исключение отменило бы периодическую проверку, поэтому только логируем его
+                markUnavailable(name, e);
+            }
+        });
+    }
+
+    /**
+     * @param name имя реплики
+     * @return отставание реплики в миллисекундах или null, если она недоступна
+     */
+    public Double getReplicaLagMs(String name) {
+        return replicaLagMs.get(name);
+    }
+
+    /**
+     * Останавливает проверку отставания и закрывает пулы соединений реплик при остановке приложения.
+     */
+    @Override
+    public void destroy() {
+        lagCheckExecutor.shutdownNow();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            if (replica.getValue() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close replica '{}': {}", replica.getKey(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private List<String> availableReplicas() {
+        List<String> available = new ArrayList<>(replicas.size());
+        for (String name : replicas.keySet()) {
+            if (isWithinLag(replicaLagMs.get(name))) {
+                available.add(name);
+            }
+        }
+        return available;
+    }
+
+    private boolean isWithinLag(Double lagMs) {
+        return lagMs != null && lagMs <= maxLag.toMillis();
+    }
+
+    private void markUnavailable(String name, Exception e) {
+        if (replicaLagMs.remove(name) != null) {
+            log.warn("Replica '{}' excluded from routing: {}", name, e.getMessage());
+        }
+    }
+
+    private DataSource primary() {
+        return getResolvedDataSources().get(PRIMARY);
+    }
+
+    private static Double queryLag(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(5);
+            try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                if (!rs.next()) {
+                    return null;
+                }
+                double lag = rs.getDouble(1);
+                return rs.wasNull() ? null : lag;
+            }
+        }
+    }
+}
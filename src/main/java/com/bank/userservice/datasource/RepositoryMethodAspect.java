@@ -0,0 +1,70 @@
+package com.bank.userservice.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Аспект, запоминающий вызываемый метод репозитория на время его выполнения.
+ *
+ * <p>SQL запросы, выполненные внутри вызова, помечаются этим методом в метриках
+ * и журнале медленных запросов. При вложенных вызовах сохраняется внешний метод:
+ * default-метод репозитория и вызванный им производный запрос учитываются вместе.
+ */
+@Aspect
+@Component
+public class RepositoryMethodAspect {
+    /** Значение для запросов, выполненных вне методов репозиториев */
+    public static final String NO_METHOD = "none";
+
+    /** Метод репозитория, выполняющийся в текущем потоке */
+    private static final ThreadLocal<String> CURRENT_METHOD = new ThreadLocal<>();
+
+    /** Имена интерфейсов репозиториев по классам их реализаций */
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    /**
+     * Выполняет метод репозитория, запоминая его имя в текущем потоке.
+     *
+     * @param joinPoint вызов метода репозитория
+     * @return результат метода
+     * @throws Throwable исключение метода
+     */
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object trackRepositoryMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (CURRENT_METHOD.get() != null) {
+            return joinPoint.proceed();
+        }
+        CURRENT_METHOD.set(repositoryName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT_METHOD.remove();
+        }
+    }
+
+    /**
+     * @return метод репозитория вида {@code UserRepository.findByEmail}
+     *         или {@value #NO_METHOD}, если поток не внутри метода репозитория
+     */
+    public static String currentMethod() {
+        String method = CURRENT_METHOD.get();
+        return method == null ? NO_METHOD : method;
+    }
+
+    private String repositoryName(Object repository) {
+        return repositoryNames.computeIfAbsent(repository.getClass(), type -> {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(candidate)) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
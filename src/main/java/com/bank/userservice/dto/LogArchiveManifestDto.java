@@ -0,0 +1,19 @@
+package com.bank.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Манифест архива логов: список всех записанных сегментов.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogArchiveManifestDto {
+    /** Сегменты в порядке записи */
+    private List<LogArchiveSegmentDto> segments = new ArrayList<>();
+}
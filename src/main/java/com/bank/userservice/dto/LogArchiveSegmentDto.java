@@ -0,0 +1,38 @@
+package com.bank.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Описание сегмента архива логов в манифесте.
+ *
+ * <p>Сегмент - gzip файл в формате NDJSON: одна строка таблицы на строку файла.
+ * Диапазоны идентификаторов и времени позволяют читателю пропускать сегменты,
+ * не распаковывая их.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogArchiveSegmentDto {
+    /** Имя таблицы, из которой выгружены строки */
+    private String table;
+    /** Имя файла сегмента относительно каталога архива */
+    private String file;
+    /** Количество строк в сегменте */
+    private long rows;
+    /** Минимальный идентификатор строки */
+    private long minId;
+    /** Максимальный идентификатор строки */
+    private long maxId;
+    /** Время самой ранней записи */
+    private LocalDateTime from;
+    /** Время самой поздней записи */
+    private LocalDateTime to;
+    /** Время создания сегмента */
+    private LocalDateTime createdAt;
+    /** Строки сегмента удалены из БД */
+    private boolean purged;
+}
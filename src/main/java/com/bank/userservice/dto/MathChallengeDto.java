@@ -0,0 +1,22 @@
+package com.bank.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO математической CAPTCHA-задачи, выданной сервером.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MathChallengeDto {
+    /** Текст задачи, например "3 + 4" */
+    private String problem;
+    /** Подписанный токен задачи, возвращается клиентом вместе с ответом */
+    private String token;
+    /** Время истечения токена */
+    private Instant expiresAt;
+}
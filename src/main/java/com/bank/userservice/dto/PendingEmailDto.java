@@ -0,0 +1,29 @@
+package com.bank.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO письма, ожидающего повторной отправки.
+ *
+ * <p>Хранит исходные данные письма, а не готовое MIME сообщение,
+ * чтобы его можно было пересобрать при повторной попытке.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingEmailDto {
+    /** Email получателя */
+    private String to;
+    /** Тема письма */
+    private String subject;
+    /** Текст письма (обычный текст или HTML) */
+    private String body;
+    /** Признак HTML письма */
+    private boolean html;
+    /** Идентификатор запроса, в рамках которого создано письмо */
+    private String rqid;
+    /** Количество неудачных попыток отправки */
+    private int attempts;
+}
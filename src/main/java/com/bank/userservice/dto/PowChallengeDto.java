@@ -0,0 +1,22 @@
+package com.bank.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO задачи proof-of-work, выданной сервером.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PowChallengeDto {
+    /** Подписанная строка задачи */
+    private String challenge;
+    /** Требуемое количество ведущих нулевых бит в SHA-256(challenge + ":" + решение) */
+    private int difficulty;
+    /** Время истечения задачи */
+    private Instant expiresAt;
+}
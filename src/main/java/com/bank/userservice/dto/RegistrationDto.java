@@ -32,11 +32,20 @@ public class RegistrationDto  {
     /** Тип капчи (обязательное поле) */
     @NotBlank(message = "Тип капчи не должен быть пустым")
     @Enumerated(EnumType.STRING)
-    private String verificationType; // 'recaptcha' или 'math'
+    private String verificationType; // 'recaptcha', 'math' или 'pow'
 
     /** Токен reCAPTCHA */
     private String recaptchaToken;
 
-    /** Токен математической капчи */
+    /** Подписанный токен математической капчи, выданный /api/captcha/challenge */
     private String mathToken;
+
+    /** Ответ на математическую капчу */
+    private String mathAnswer;
+
+    /** Подписанная задача proof-of-work, выданная /api/captcha/pow */
+    private String powChallenge;
+
+    /** Решение задачи proof-of-work */
+    private String powSolution;
 }
@@ -2,13 +2,13 @@ package com.bank.userservice.dto.auth;
 import lombok.Data;
 import java.time.LocalDateTime;
 
-import java.util.Map;
-
 /**
  * Ответные данные
+ *
+ * @param <T> тип данных ответа
  */
 @Data
-public class AuthResponseDto {
+public class AuthResponseDto<T> {
     /** Идентификатор запроса */
     private String rqid;
     /** Идентификатор ответа */
@@ -16,7 +16,7 @@ public class AuthResponseDto {
     /** Код статуса */
     private Integer statusCode;
     /** Данные ответа */
-    private Map<String, Object> response;
+    private T response;
     /** Время и дата ответа */
     private LocalDateTime responseTime;
 }
@@ -0,0 +1,12 @@
+package com.bank.userservice.dto.auth;
+
+import com.bank.userservice.dto.UserResponseDto;
+
+/**
+ * Данные успешного ответа регистрации, входа и подтверждения email.
+ *
+ * @param message статус операции
+ * @param user данные пользователя
+ */
+public record AuthResultDto(String message, UserResponseDto user) {
+}
@@ -0,0 +1,9 @@
+package com.bank.userservice.dto.auth;
+
+/**
+ * Тело HTTP-ответа с ошибкой.
+ *
+ * @param errorDetails ответ с описанием ошибки
+ */
+public record ErrorDetailsDto(AuthResponseDto<ErrorDto> errorDetails) {
+}
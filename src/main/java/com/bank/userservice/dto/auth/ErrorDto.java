@@ -0,0 +1,9 @@
+package com.bank.userservice.dto.auth;
+
+/**
+ * Данные ответа с ошибкой.
+ *
+ * @param error сообщение об ошибке
+ */
+public record ErrorDto(String error) {
+}
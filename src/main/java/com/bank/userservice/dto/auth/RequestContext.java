@@ -1,22 +1,102 @@
 package com.bank.userservice.dto.auth;
 
 
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
-import org.springframework.context.annotation.Scope;
-import org.springframework.context.annotation.ScopedProxyMode;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Map;
 /**
-* Контекст для хранения данных запроса
+ * Контекст для хранения данных запроса
+ *
+ * <p>Данные хранятся в ThreadLocal текущего потока, а не в request-scope бине,
+ * поэтому контекст доступен и вне HTTP запроса (задачи планировщика, пулы потоков).
+ * rqid дублируется в MDC для вывода в логи.
+ *
+ * <p>Жизненный цикл:
+ * <ul>
+ *   <li>HTTP запрос: заполняется {@link com.bank.userservice.config.RequestIdFilter}, очищается после ответа</li>
+ *   <li>Пулы потоков: копируется {@link com.bank.userservice.config.RequestContextTaskDecorator} из потока, поставившего задачу</li>
+ *   <li>Задачи планировщика: получают собственный rqid на время выполнения</li>
+ * </ul>
  */
-@Setter
-@Getter
 @Component
-@RequiredArgsConstructor
-@Scope(value = WebApplicationContext.SCOPE_REQUEST, proxyMode = ScopedProxyMode.TARGET_CLASS)
 public class RequestContext {
-    /** Идентификатор запроса */
-    private String rqid;
-}
\ No newline at end of file
+    /** Имя ключа MDC с идентификатором запроса */
+    public static final String MDC_RQID = "rqid";
+
+    /** Идентификатор запроса текущего потока */
+    private static final ThreadLocal<String> RQID = new ThreadLocal<>();
+
+    /**
+     * @return идентификатор запроса текущего потока или null
+     */
+    public String getRqid() {
+        return RQID.get();
+    }
+
+    /**
+     * Устанавливает идентификатор запроса текущего потока.
+     *
+     * @param rqid идентификатор запроса, null очищает контекст
+     */
+    public void setRqid(String rqid) {
+        if (rqid == null) {
+            clear();
+            return;
+        }
+        RQID.set(rqid);
+        MDC.put(MDC_RQID, rqid);
+    }
+
+    /**
+     * Очищает контекст текущего потока.
+     */
+    public void clear() {
+        RQID.remove();
+        MDC.remove(MDC_RQID);
+    }
+
+    /**
+     * Снимок контекста текущего потока для переноса в другой поток.
+     *
+     * @return снимок контекста
+     */
+    public static Snapshot capture() {
+        return new Snapshot(RQID.get(), MDC.getCopyOfContextMap());
+    }
+
+    /**
+     * Снимок контекста: rqid и полная копия MDC.
+     *
+     * @param rqid идентификатор запроса
+     * @param mdc содержимое MDC
+     */
+    public record Snapshot(String rqid, Map<String, String> mdc) {
+        /**
+         * Устанавливает снимок в текущем потоке.
+         *
+         * @return предыдущий контекст потока, который нужно восстановить после выполнения
+         */
+        public Snapshot apply() {
+            Snapshot previous = capture();
+            restore();
+            return previous;
+        }
+
+        /**
+         * Заменяет контекст текущего потока этим снимком.
+         */
+        public void restore() {
+            if (rqid == null) {
+                RQID.remove();
+            } else {
+                RQID.set(rqid);
+            }
+            if (mdc == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(mdc);
+            }
+        }
+    }
+}
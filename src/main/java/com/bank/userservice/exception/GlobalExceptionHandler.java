@@ -1,6 +1,8 @@
 package com.bank.userservice.exception;
 
 import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.ErrorDetailsDto;
+import com.bank.userservice.dto.auth.ErrorDto;
 
 import com.bank.userservice.service.ApplicationLogService;
 import com.bank.userservice.service.IntegrationLogService;
@@ -13,11 +15,11 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 
 import java.io.IOException;
 
-import java.util.Map;
 
 import java.util.stream.Collectors;
 
@@ -49,13 +51,13 @@ public class GlobalExceptionHandler {
      * @throws IOException при ошибках ввода-вывода
      */
     @ExceptionHandler(BadCredentialsException.class)
-    public ResponseEntity<Map<String, Object>> handleBadCredentialsException(BadCredentialsException ex) throws IOException {
+    public ResponseEntity<ErrorDetailsDto> handleBadCredentialsException(BadCredentialsException ex) throws IOException {
 
 
-        AuthResponseDto authResponseDto = integrationLogService
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService
                 .logErrorToIntegrationLogs(HttpStatus.UNAUTHORIZED, ex.getMessage());
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto), HttpStatus.UNAUTHORIZED);
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.UNAUTHORIZED);
     }
 
     /**
@@ -66,16 +68,16 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) throws JsonProcessingException {
+    public ResponseEntity<ErrorDetailsDto> handleValidationExceptions(MethodArgumentNotValidException ex) throws JsonProcessingException {
 
         String errorMessage = ex.getBindingResult().getFieldErrors().stream()
                 .map(error -> error.getField() + ": " + error.getDefaultMessage())
                 .collect(Collectors.joining(", "));
 
-        AuthResponseDto authResponseDto = integrationLogService
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService
                 .logErrorToIntegrationLogs(HttpStatus.BAD_REQUEST, errorMessage);
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto), HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.BAD_REQUEST);
     }
 
     /**
@@ -86,14 +88,14 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler(NumberFormatException.class)
-    public ResponseEntity<Map<String, Object>> handleNumberFormatException(NumberFormatException ex) throws JsonProcessingException {
+    public ResponseEntity<ErrorDetailsDto> handleNumberFormatException(NumberFormatException ex) throws JsonProcessingException {
 
-        AuthResponseDto authResponseDto = integrationLogService.logErrorToIntegrationLogs(
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService.logErrorToIntegrationLogs(
                 HttpStatus.BAD_REQUEST,
                 ex.getMessage()
         );
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto), HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.BAD_REQUEST);
     }
 
     /**
@@ -104,9 +106,9 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler(JsonProcessingException.class)
-    public ResponseEntity<Map<String, Object>> handleJsonProcessingException(JsonProcessingException ex) throws JsonProcessingException {
+    public ResponseEntity<ErrorDetailsDto> handleJsonProcessingException(JsonProcessingException ex) throws JsonProcessingException {
 
-        AuthResponseDto authResponseDto = integrationLogService.logErrorToIntegrationLogs(
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService.logErrorToIntegrationLogs(
                 HttpStatus.INTERNAL_SERVER_ERROR,
                 "Internal server error (JSON processing)"
         );
@@ -116,7 +118,7 @@ public class GlobalExceptionHandler {
                 authResponseDto.getRqid(),
                 loggerName);
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto),
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto),
                 HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
@@ -128,12 +130,12 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler({IllegalArgumentException.class, NullPointerException.class})
-    public ResponseEntity<Map<String, Object>> handlePasswordEncodingErrors(RuntimeException ex) throws JsonProcessingException {
+    public ResponseEntity<ErrorDetailsDto> handlePasswordEncodingErrors(RuntimeException ex) throws JsonProcessingException {
 
-        AuthResponseDto authResponseDto = integrationLogService
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService
                 .logErrorToIntegrationLogs(HttpStatus.BAD_REQUEST, ex.getMessage());
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto), HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.BAD_REQUEST);
     }
 
     /**
@@ -144,14 +146,14 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler(InvalidCaptchaException.class)
-    public ResponseEntity<Map<String, Object>> handleCaptchaVerificationException(InvalidCaptchaException ex) throws JsonProcessingException {
+    public ResponseEntity<ErrorDetailsDto> handleCaptchaVerificationException(InvalidCaptchaException ex) throws JsonProcessingException {
 
-        AuthResponseDto authResponseDto = integrationLogService.logErrorToIntegrationLogs(
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService.logErrorToIntegrationLogs(
                 HttpStatus.BAD_REQUEST,
                 ex.getMessage()
         );
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto), HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.BAD_REQUEST);
     }
     /**
      * Обрабатывает ошибки неподтвержденного email.
@@ -161,13 +163,13 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler(EmailNotVerifiedException.class)
-    public ResponseEntity<Map<String, Object>> handleEmailNotVerified(EmailNotVerifiedException ex) throws JsonProcessingException {
-        AuthResponseDto authResponseDto = integrationLogService.logErrorToIntegrationLogs(
+    public ResponseEntity<ErrorDetailsDto> handleEmailNotVerified(EmailNotVerifiedException ex) throws JsonProcessingException {
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService.logErrorToIntegrationLogs(
                 HttpStatus.BAD_REQUEST,
                 ex.getMessage()
         );
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto), HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.BAD_REQUEST);
     }
     /**
      * Обрабатывает ошибки истекшего срока регистрации.
@@ -177,14 +179,53 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler(AccountExpiredException.class)
-    public ResponseEntity<Map<String, Object>> handleEmailNotVerified(AccountExpiredException ex) throws JsonProcessingException {
-        AuthResponseDto authResponseDto = integrationLogService.logErrorToIntegrationLogs(
+    public ResponseEntity<ErrorDetailsDto> handleEmailNotVerified(AccountExpiredException ex) throws JsonProcessingException {
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService.logErrorToIntegrationLogs(
                 HttpStatus.BAD_REQUEST,
                 ex.getMessage()
         );
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto), HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.BAD_REQUEST);
     }
+    /**
+     * Обрабатывает повтор rqid, который нельзя обслужить сохраненным ответом.
+     *
+     * @param ex исключение IdempotencyConflictException
+     * @return ResponseEntity с деталями ошибки и статусом 409 (Conflict)
+     * @throws JsonProcessingException при ошибках обработки JSON
+     */
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ErrorDetailsDto> handleIdempotencyConflict(IdempotencyConflictException ex) throws JsonProcessingException {
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService.logErrorToIntegrationLogs(
+                HttpStatus.CONFLICT,
+                ex.getMessage()
+        );
+
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.CONFLICT);
+    }
+    /**
+     * Обрабатывает превышение времени ожидания асинхронного ответа
+     * ({@code spring.mvc.async.request-timeout}).
+     *
+     * @param ex исключение AsyncRequestTimeoutException
+     * @return ResponseEntity с деталями ошибки и статусом 503 (Service Unavailable)
+     * @throws JsonProcessingException при ошибках обработки JSON
+     */
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<ErrorDetailsDto> handleAsyncRequestTimeout(AsyncRequestTimeoutException ex) throws JsonProcessingException {
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService.logErrorToIntegrationLogs(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Request processing timed out, try again later"
+        );
+
+        applicationLogService.log(ERROR,
+                "Asynchronous request timed out",
+                authResponseDto.getRqid(),
+                loggerName);
+
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Обрабатывает все неперехваченные Runtime исключения.
      *
@@ -193,12 +234,12 @@ public class GlobalExceptionHandler {
      * @throws JsonProcessingException при ошибках обработки JSON
      */
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<Map<String, Object>> handleAllUncaughtException(RuntimeException ex) throws JsonProcessingException {
+    public ResponseEntity<ErrorDetailsDto> handleAllUncaughtException(RuntimeException ex) throws JsonProcessingException {
 
-        AuthResponseDto authResponseDto = integrationLogService
+        AuthResponseDto<ErrorDto> authResponseDto = integrationLogService
                 .logErrorToIntegrationLogs(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
 
-        return new ResponseEntity<>(Map.of("errorDetails", authResponseDto),
+        return new ResponseEntity<>(new ErrorDetailsDto(authResponseDto),
                 HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
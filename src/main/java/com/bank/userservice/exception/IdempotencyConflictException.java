@@ -0,0 +1,11 @@
+package com.bank.userservice.exception;
+
+/**
+ * Исключение для повтора rqid, который нельзя обслужить сохраненным ответом:
+ * rqid использован с другими данными запроса или первый запрос еще выполняется
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
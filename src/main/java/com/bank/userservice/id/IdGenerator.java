@@ -0,0 +1,27 @@
+package com.bank.userservice.id;
+
+/**
+ * Генератор идентификаторов запросов (rqid) и ответов (rsid).
+ *
+ * <p>Реализация по умолчанию - {@link MonotonicIdGenerator}. Для другого формата
+ * достаточно объявить собственный бин этого типа: реализация по умолчанию регистрируется,
+ * только если такого бина нет (см. {@link com.bank.userservice.config.IdGeneratorAutoConfiguration}).
+ */
+public interface IdGenerator {
+    /**
+     * Выдает новый идентификатор с префиксом.
+     *
+     * @param prefix префикс из символов ASCII, например {@code RES_}
+     * @return префикс и уникальная часть идентификатора
+     */
+    String nextId(String prefix);
+
+    /**
+     * Выдает новый идентификатор без префикса.
+     *
+     * @return уникальный идентификатор
+     */
+    default String nextId() {
+        return nextId("");
+    }
+}
@@ -0,0 +1,75 @@
+package com.bank.userservice.id;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Упорядоченные по времени идентификаторы в формате, близком к ULID.
+ *
+ * <p>128 бит записываются 26 символами Crockford Base32:
+ * <ul>
+ *   <li>48 бит - время в миллисекундах</li>
+ *   <li>16 бит - порядковый номер в пределах миллисекунды</li>
+ *   <li>64 бита - случайная часть из {@link ThreadLocalRandom}</li>
+ * </ul>
+ * Идентификаторы одного экземпляра строго возрастают и при сравнении строк: старшие
+ * 64 бита выдаются одним атомарным обновлением без блокировок. Если за миллисекунду
+ * выдано больше 65536 идентификаторов, время в них опережает часы, а при переводе часов
+ * назад не уменьшается. Случайная часть различает экземпляры сервиса.
+ *
+ * <p>{@code SecureRandom} не используется: идентификаторы служат для связи логов и не
+ * являются секретом. Строка собирается из одного массива байт без промежуточных строк.
+ *
+ * <p>Бин регистрируется {@link com.bank.userservice.config.IdGeneratorAutoConfiguration}.
+ */
+public class MonotonicIdGenerator implements IdGenerator {
+    /** Длина идентификатора без префикса */
+    public static final int LENGTH = 26;
+
+    private static final byte[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+    private static final int SEQUENCE_BITS = 16;
+
+    private final LongSupplier clock;
+
+    /** Старшие 64 бита последнего идентификатора: время и порядковый номер */
+    private final AtomicLong lastHigh = new AtomicLong();
+
+    public MonotonicIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock источник времени в миллисекундах
+     */
+    MonotonicIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId(String prefix) {
+        long high = lastHigh.accumulateAndGet(clock.getAsLong() << SEQUENCE_BITS,
+                (last, now) -> Math.max(now, last + 1));
+        long low = ThreadLocalRandom.current().nextLong();
+
+        int offset = prefix.length();
+        byte[] chars = new byte[offset + LENGTH];
+        for (int i = 0; i < offset; i++) {
+            chars[i] = (byte) prefix.charAt(i);
+        }
+        // Младшие символы - младшие биты; первый символ содержит 3 старших бита
+        for (int i = LENGTH - 1, shift = 0; i >= 0; i--, shift += 5) {
+            long bits;
+            if (shift + 5 <= Long.SIZE) {
+                bits = low >>> shift;
+            } else if (shift >= Long.SIZE) {
+                bits = high >>> (shift - Long.SIZE);
+            } else {
+                bits = (low >>> shift) | (high << (Long.SIZE - shift));
+            }
+            chars[offset + i] = ALPHABET[(int) (bits & 31)];
+        }
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,217 @@
+package com.bank.userservice.lifecycle;
+
+import com.bank.userservice.service.EmailOutbox;
+import com.bank.userservice.service.EmailService;
+import com.bank.userservice.service.EmailSpillService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Порядок остановки экземпляра без потери писем.
+ *
+ * <p>Остановка выполняется по шагам, длительность каждого записывается в метрику
+ * {@code app.shutdown.drain} с тегом {@code step} и в журнал:
+ * <ol>
+ *   <li>{@code requests} - Tomcat перестает принимать соединения и ждет завершения
+ *       текущих запросов ({@code server.shutdown=graceful}, не дольше
+ *       {@code spring.lifecycle.timeout-per-shutdown-phase}), затем останавливается</li>
+ *   <li>{@code executors} - повторная отправка писем по расписанию прекращается (текущий
+ *       проход завершается), пулы {@code authIoExecutor} и {@code passwordHashExecutor}
+ *       завершают начатые шаги запросов, включая запись логов и отправку писем. Пулы
+ *       останавливаются только после того, как оба простаивают: шаг запроса в одном пуле
+ *       передает следующий шаг в другой, и остановленный пул его бы не принял</li>
+ *   <li>{@code email} - письма из {@link EmailOutbox} отправляются по одному разу</li>
+ *   <li>{@code spill} - неотправленные письма сохраняются в БД и будут отправлены
+ *       другим экземпляром (см. {@link EmailSpillService})</li>
+ * </ol>
+ * Шаги {@code executors} и {@code email} вместе ограничены {@code app.shutdown.drain-timeout}.
+ *
+ * <p>Записи {@code ApplicationLog} и {@code IntegrationLog} сохраняются синхронно в рамках
+ * запроса, поэтому отдельного сброса не требуют: они завершаются на первых двух шагах.
+ * Фаза выбрана так, что шаги выполняются после остановки веб-сервера, но до закрытия
+ * пулов соединений с БД и планировщика.
+ */
+@Slf4j
+@Component
+public class GracefulShutdownCoordinator implements SmartLifecycle {
+    /** Фаза остановки: после остановки веб-сервера (его фаза на 1024 ниже фазы graceful shutdown) */
+    public static final int PHASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+    /** Интервал проверки простоя пулов */
+    private static final long IDLE_POLL_INTERVAL_MS = 20;
+
+    private final List<ThreadPoolTaskExecutor> executors;
+    private final EmailService emailService;
+    private final EmailOutbox emailOutbox;
+    private final EmailSpillService emailSpillService;
+    private final MeterRegistry meterRegistry;
+    private final Duration drainTimeout;
+
+    /** Момент начала закрытия контекста по {@link System#nanoTime()}, 0 - закрытие не начато */
+    private volatile long closeStartedNanos;
+    private volatile boolean running;
+
+    /**
+     * @param authIoExecutor пул блокирующих операций (в режиме виртуальных потоков не ожидается)
+     * @param passwordHashExecutor пул хеширования паролей
+     * @param emailService сервис отправки писем
+     * @param emailOutbox очередь повторной отправки писем
+     * @param emailSpillService сохранение неотправленных писем
+     * @param meterRegistry реестр метрик
+     * @param drainTimeout срок завершения пулов и отправки писем
+     */
+    public GracefulShutdownCoordinator(@Qualifier("authIoExecutor") AsyncTaskExecutor authIoExecutor,
+                                       @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor passwordHashExecutor,
+                                       EmailService emailService,
+                                       EmailOutbox emailOutbox,
+                                       EmailSpillService emailSpillService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.shutdown.drain-timeout:20s}") Duration drainTimeout) {
+        this.executors = Stream.of(authIoExecutor, passwordHashExecutor)
+                .filter(ThreadPoolTaskExecutor.class::isInstance)
+                .map(ThreadPoolTaskExecutor.class::cast)
+                .toList();
+        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.emailSpillService = emailSpillService;
+        this.meterRegistry = meterRegistry;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Запоминает начало остановки: событие публикуется до остановки веб-сервера.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        closeStartedNanos = System.nanoTime();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Завершает начатую работу и сохраняет неотправленные письма.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        long stopStarted = System.nanoTime();
+        long requestsNanos = closeStartedNanos == 0 ? 0 : stopStarted - closeStartedNanos;
+        record("requests", requestsNanos);
+        long deadline = stopStarted + drainTimeout.toNanos();
+
+        long started = System.nanoTime();
+        if (!emailService.stopRedelivery(Duration.ofNanos(Math.max(0, deadline - started)))) {
+            log.warn("Scheduled email redelivery is still running at the drain deadline");
+        }
+        int unfinishedTasks = drainExecutors(deadline);
+        long executorsNanos = record("executors", System.nanoTime() - started);
+
+        started = System.nanoTime();
+        int queued = emailOutbox.size();
+        int left = queued == 0 ? 0 : emailService.flushOutbox(Duration.ofNanos(Math.max(0, deadline - started)));
+        long emailNanos = record("email", System.nanoTime() - started);
+
+        started = System.nanoTime();
+        int spilled = emailSpillService.spill(emailOutbox.drain());
+        long spillNanos = record("spill", System.nanoTime() - started);
+
+        log.info("Shutdown drain finished: requests {} ms, executors {} ms ({} tasks unfinished),"
+                        + " email outbox {} ms ({} of {} sent), spill {} ms ({} of {} emails saved)",
+                millis(requestsNanos), millis(executorsNanos), unfinishedTasks,
+                millis(emailNanos), queued - left, queued, millis(spillNanos), spilled, left);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Ждет простоя пулов, затем останавливает их и ждет завершения задач до истечения срока.
+     *
+     * <p>Веб-сервер к этому моменту остановлен, поэтому новые запросы не начинаются, но задачи
+     * начатых запросов передают следующие шаги из пула в пул. Пулы считаются простаивающими,
+     * когда в них нет выполняющихся и ожидающих задач и между двумя проверками не появилось
+     * новых: задача, завершившаяся между проверками пулов, могла передать шаг в уже
+     * проверенный пул.
+     *
+     * @param deadlineNanos срок по {@link System#nanoTime()}
+     * @return количество задач, не завершенных к сроку
+     */
+    private int drainExecutors(long deadlineNanos) {
+        awaitIdle(deadlineNanos);
+        executors.forEach(executor -> executor.getThreadPoolExecutor().shutdown());
+        int unfinished = 0;
+        for (ThreadPoolTaskExecutor executor : executors) {
+            ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+            try {
+                if (!pool.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    unfinished += pool.getActiveCount() + pool.getQueue().size();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                unfinished += pool.getActiveCount() + pool.getQueue().size();
+            }
+        }
+        return unfinished;
+    }
+
+    private void awaitIdle(long deadlineNanos) {
+        long submitted = -1;
+        while (System.nanoTime() - deadlineNanos < 0) {
+            long previous = submitted;
+            submitted = 0;
+            boolean idle = true;
+            for (ThreadPoolTaskExecutor executor : executors) {
+                ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+                submitted += pool.getTaskCount();
+                idle &= pool.getActiveCount() == 0 && pool.getQueue().isEmpty();
+            }
+            if (idle && submitted == previous) {
+                return;
+            }
+            try {
+                Thread.sleep(IDLE_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long record(String step, long nanos) {
+        Timer.builder("app.shutdown.drain")
+                .description("Time spent on each step of the graceful shutdown")
+                .tag("step", step)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        return nanos;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
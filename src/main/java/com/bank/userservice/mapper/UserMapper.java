@@ -2,6 +2,7 @@ package com.bank.userservice.mapper;
 
 import com.bank.userservice.dto.UserResponseDto;
 import com.bank.userservice.model.User;
+import com.bank.userservice.model.UserCredentials;
 /**
  * Класс для преобразования между сущностью User и DTO.
  */
@@ -26,4 +27,19 @@ public class UserMapper {
                 user.getCreatedAt()
         );
     }
+
+    /**
+     * Преобразует данные для входа в UserResponseDto.
+     *
+     * @param credentials данные для входа
+     * @return UserResponseDto с идентификатором, именем, email и датой создания
+     */
+    public static UserResponseDto credentialsToUserResponseDto(UserCredentials credentials) {
+        return new UserResponseDto(
+                credentials.id(),
+                credentials.username(),
+                credentials.email(),
+                credentials.createdAt()
+        );
+    }
 }
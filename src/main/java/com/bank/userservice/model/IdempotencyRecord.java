@@ -0,0 +1,59 @@
+package com.bank.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Результат выполнения запроса с заданным rqid, общий для всех экземпляров сервиса.
+ *
+ * <p>Повтор запроса с тем же rqid получает сохраненный ответ вместо повторного выполнения
+ * (см. {@code IdempotencyService}). Пока запрос выполняется, запись находится в статусе
+ * {@link Status#IN_PROGRESS}, и ее срок ограничен временем выполнения: запись экземпляра,
+ * остановленного во время запроса, освобождается по истечении срока.
+ */
+@Entity
+@Table(name = "idempotency_records")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    /** Ключ записи: конечная точка и rqid */
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    /** Подпись данных запроса: повтор rqid с другими данными отклоняется */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    /** Статус выполнения */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    /** Сохраненный ответ в JSON, заполняется после успешного выполнения */
+    @Column(columnDefinition = "text")
+    private String response;
+
+    /** Время истечения записи, после которого rqid можно использовать повторно */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /** Токен последнего захвата: ответ сохраняет и запись освобождает только его владелец */
+    @Column(length = 36)
+    private String claimToken;
+
+    /**
+     * Статус выполнения запроса.
+     */
+    public enum Status {
+        /** Запрос выполняется */
+        IN_PROGRESS,
+        /** Запрос выполнен, ответ сохранен */
+        COMPLETED
+    }
+}
@@ -0,0 +1,39 @@
+package com.bank.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Блокировка задачи планировщика, общая для всех экземпляров сервиса.
+ *
+ * <p>Задачу выполняет экземпляр, записавший себя в {@code lockedBy}, пока не истек
+ * срок {@code lockedUntil}. Время берется из БД, поэтому расхождение часов
+ * между экземплярами не влияет на захват блокировки.
+ */
+@Entity
+@Table(name = "job_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+    /** Имя задачи */
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /** Идентификатор экземпляра, владеющего блокировкой */
+    @Column(nullable = false)
+    private String lockedBy;
+
+    /** Время захвата блокировки */
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+
+    /** Время истечения блокировки, после которого ее может захватить другой экземпляр */
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+}
@@ -0,0 +1,56 @@
+package com.bank.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Письмо, не отправленное к остановке экземпляра.
+ *
+ * <p>Сохраняется из очереди повторной отправки при остановке сервиса и отправляется
+ * прямо из таблицы любым работающим экземпляром (см. {@code EmailSpillService}).
+ */
+@Entity
+@Table(name = "pending_emails")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingEmail {
+    /** Идентификатор */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Email получателя */
+    @Column(nullable = false)
+    private String recipient;
+
+    /** Тема письма */
+    @Column(nullable = false)
+    private String subject;
+
+    /** Текст письма (обычный текст или HTML) */
+    @Column(nullable = false, columnDefinition = "text")
+    private String body;
+
+    /** Признак HTML письма */
+    @Column(nullable = false)
+    private boolean html;
+
+    /** Идентификатор запроса, в рамках которого создано письмо */
+    private String rqid;
+
+    /** Количество неудачных попыток отправки */
+    @Column(nullable = false)
+    private int attempts;
+
+    /** Время сохранения письма */
+    @Column(nullable = false)
+    private LocalDateTime spilledAt;
+
+    /** Срок аренды письма экземпляром, который его отправляет; null - письмо свободно */
+    private LocalDateTime claimedUntil;
+}
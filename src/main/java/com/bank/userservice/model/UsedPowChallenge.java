@@ -0,0 +1,31 @@
+package com.bank.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Использованная задача proof-of-work, общая для всех экземпляров сервиса.
+ *
+ * <p>Решенная задача принимается один раз: nonce записывается при первой успешной
+ * проверке, и повтор той же пары задача/решение отклоняется. Запись хранится
+ * не меньше срока жизни задачи, после чего удаляется по расписанию.
+ */
+@Entity
+@Table(name = "used_pow_challenges")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsedPowChallenge {
+    /** Случайный nonce из подписанной задачи */
+    @Id
+    @Column(length = 32)
+    private String nonce;
+
+    /** Время, после которого запись можно удалить */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
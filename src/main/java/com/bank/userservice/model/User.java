@@ -1,37 +1,65 @@
 package com.bank.userservice.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 /**
  * Сущность пользователя системы.
+ *
+ * <p>Хранится в кэше второго уровня. Канонический email является натуральным
+ * идентификатором: поиск по нему разрешается через кэш без обращения к БД.
  */
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
+    /** Регион кэша второго уровня для пользователей */
+    public static final String CACHE_REGION = "users";
+    /** Регион кэша соответствия канонического email идентификатору */
+    public static final String NATURAL_ID_CACHE_REGION = "users-natural-id";
+
     /** Уникальный идентификатор */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    /** Уникальное имя пользователя */
-    @Column(nullable = false, unique = true)
+    /** Имя пользователя в том виде, в котором его ввел пользователь */
+    @Column(nullable = false)
     private String username;
 
-    /** Уникальный email */
+    /** Уникальное имя пользователя в каноническом виде, используется для поиска */
     @Column(nullable = false, unique = true)
+    @Setter(AccessLevel.NONE)
+    private String usernameCanonical;
+
+    /** Email в том виде, в котором его ввел пользователь */
+    @Column(nullable = false)
     private String email;
 
+    /** Уникальный email в каноническом виде, натуральный идентификатор для поиска */
+    @NaturalId(mutable = true)
+    @Column(nullable = false, unique = true)
+    @Setter(AccessLevel.NONE)
+    private String emailCanonical;
+
     /** Зашифрованный пароль */
     @Column(nullable = false)
     private String password;
@@ -54,4 +82,37 @@ public class User {
 
     /** Срок действия токена верификации */
     private LocalDateTime emailVerificationTokenExpiresAt;
+
+    /**
+     * Устанавливает имя пользователя и его канонический вид.
+     *
+     * @param username имя пользователя
+     */
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameCanonical = canonicalize(username);
+    }
+
+    /**
+     * Устанавливает email и его канонический вид.
+     *
+     * @param email адрес электронной почты
+     */
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailCanonical = canonicalize(email);
+    }
+
+    /**
+     * Приводит имя пользователя или email к каноническому виду:
+     * без пробелов по краям и в нижнем регистре.
+     *
+     * <p>"User@X.com" и "user@x.com" считаются одним адресом.
+     *
+     * @param value имя пользователя или email
+     * @return канонический вид или null
+     */
+    public static String canonicalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
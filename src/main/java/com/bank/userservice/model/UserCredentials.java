@@ -0,0 +1,30 @@
+package com.bank.userservice.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Узкая проекция пользователя для входа в систему.
+ *
+ * <p>Содержит только поля, нужные для проверки пароля, статуса учетной записи
+ * и формирования ответа. Все поля входят в покрывающий индекс
+ * {@code uk_users_email_canonical}, поэтому PostgreSQL отвечает на запрос
+ * сканированием только индекса. Проекция не является управляемой сущностью,
+ * поэтому Hibernate не хранит ее снимок и не проверяет изменения.
+ *
+ * @param id идентификатор
+ * @param username имя пользователя
+ * @param email адрес электронной почты
+ * @param passwordHash хеш пароля
+ * @param emailVerified флаг подтверждения email
+ * @param emailVerificationTokenExpiresAt срок действия токена верификации
+ * @param createdAt дата создания
+ */
+public record UserCredentials(
+        Long id,
+        String username,
+        String email,
+        String passwordHash,
+        boolean emailVerified,
+        LocalDateTime emailVerificationTokenExpiresAt,
+        LocalDateTime createdAt) {
+}
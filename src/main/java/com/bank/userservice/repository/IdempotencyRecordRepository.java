@@ -0,0 +1,107 @@
+package com.bank.userservice.repository;
+
+import com.bank.userservice.model.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Репозиторий для работы с результатами запросов по rqid.
+ *
+ * <p>Все операции выполняются одним атомарным запросом к основной БД и используют время БД,
+ * поэтому запись, только что созданная другим экземпляром, видна сразу.
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    /**
+     * Захватывает выполнение запроса, если записи нет или ее срок истек.
+     *
+     * @param key ключ записи
+     * @param fingerprint подпись данных запроса
+     * @param claimToken токен захвата, уникальный для каждого выполнения
+     * @param leaseMillis срок выполнения в миллисекундах
+     * @return 1 если выполнение захвачено, иначе 0
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_records"))
+    @Query(value = "INSERT INTO idempotency_records (idempotency_key, fingerprint, status, response, expires_at, claim_token)"
+            + " VALUES (:key, :fingerprint, 'IN_PROGRESS', NULL, now() + :leaseMillis * INTERVAL '1 millisecond',"
+            + " :claimToken)"
+            + " ON CONFLICT (idempotency_key) DO UPDATE"
+            + " SET fingerprint = EXCLUDED.fingerprint, status = EXCLUDED.status, response = NULL,"
+            + " expires_at = EXCLUDED.expires_at, claim_token = EXCLUDED.claim_token"
+            + " WHERE idempotency_records.expires_at <= now()",
+            nativeQuery = true)
+    int tryClaim(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                 @Param("claimToken") String claimToken, @Param("leaseMillis") long leaseMillis);
+
+    /**
+     * Читает действующую запись из основной БД (не из реплики).
+     *
+     * @param key ключ записи
+     * @return запись, если ее срок не истек
+     */
+    @Transactional
+    @Query(value = "SELECT * FROM idempotency_records WHERE idempotency_key = :key AND expires_at > now()",
+            nativeQuery = true)
+    Optional<IdempotencyRecord> findCurrent(@Param("key") String key);
+
+    /**
+     * Сохраняет ответ выполненного запроса.
+     *
+     * <p>Ответ сохраняется, только если запись все еще захвачена этим выполнением: если срок
+     * выполнения истек и запись захватил повтор, ответ первого выполнения не сохраняется.
+     *
+     * @param key ключ записи
+     * @param claimToken токен захвата выполнения
+     * @param response ответ в JSON
+     * @param ttlMillis срок хранения ответа в миллисекундах
+     * @return 1 если ответ сохранен, 0 если запись освобождена или захвачена другим выполнением
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_records"))
+    @Query(value = "UPDATE idempotency_records SET status = 'COMPLETED', response = :response,"
+            + " expires_at = now() + :ttlMillis * INTERVAL '1 millisecond'"
+            + " WHERE idempotency_key = :key AND status = 'IN_PROGRESS' AND claim_token = :claimToken",
+            nativeQuery = true)
+    int complete(@Param("key") String key, @Param("claimToken") String claimToken,
+                 @Param("response") String response, @Param("ttlMillis") long ttlMillis);
+
+    /**
+     * Освобождает запись запроса, завершившегося ошибкой, чтобы повтор выполнился заново.
+     *
+     * <p>Запись, захваченная после истечения срока другим выполнением, не удаляется.
+     *
+     * @param key ключ записи
+     * @param claimToken токен захвата выполнения
+     * @return 1 если запись удалена, иначе 0
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_records"))
+    @Query(value = "DELETE FROM idempotency_records"
+            + " WHERE idempotency_key = :key AND status = 'IN_PROGRESS' AND claim_token = :claimToken",
+            nativeQuery = true)
+    int release(@Param("key") String key, @Param("claimToken") String claimToken);
+
+    /**
+     * Удаляет записи с истекшим сроком.
+     *
+     * @return количество удаленных записей
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_records"))
+    @Query(value = "DELETE FROM idempotency_records WHERE expires_at <= now()", nativeQuery = true)
+    int deleteExpired();
+}
@@ -0,0 +1,76 @@
+package com.bank.userservice.repository;
+
+import com.bank.userservice.model.JobLock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Репозиторий для работы с блокировками задач планировщика.
+ *
+ * <p>Все операции выполняются одним атомарным запросом и используют время БД.
+ * Для запросов указана затрагиваемая таблица, иначе Hibernate очищал бы весь
+ * кэш второго уровня при каждом захвате и продлении блокировки.
+ */
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+    /**
+     * Захватывает блокировку, если она свободна, истекла или уже принадлежит экземпляру.
+     *
+     * @param name имя задачи
+     * @param owner идентификатор экземпляра
+     * @param leaseMillis срок аренды в миллисекундах
+     * @return 1 если блокировка захвачена, иначе 0
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_locks"))
+    @Query(value = "INSERT INTO job_locks (name, locked_by, locked_at, locked_until)"
+            + " VALUES (:name, :owner, now(), now() + :leaseMillis * INTERVAL '1 millisecond')"
+            + " ON CONFLICT (name) DO UPDATE"
+            + " SET locked_by = EXCLUDED.locked_by, locked_at = EXCLUDED.locked_at,"
+            + " locked_until = EXCLUDED.locked_until"
+            + " WHERE job_locks.locked_until <= now() OR job_locks.locked_by = EXCLUDED.locked_by",
+            nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    /**
+     * Продлевает аренду блокировки, принадлежащей экземпляру.
+     *
+     * @param name имя задачи
+     * @param owner идентификатор экземпляра
+     * @param leaseMillis новый срок аренды в миллисекундах, отсчитывается от текущего момента
+     * @return 1 если аренда продлена, 0 если блокировка потеряна
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_locks"))
+    @Query(value = "UPDATE job_locks SET locked_until = now() + :leaseMillis * INTERVAL '1 millisecond'"
+            + " WHERE name = :name AND locked_by = :owner",
+            nativeQuery = true)
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    /**
+     * Освобождает блокировку, сохраняя ее не меньше минимального срока с момента захвата.
+     *
+     * @param name имя задачи
+     * @param owner идентификатор экземпляра
+     * @param lockAtLeastMillis минимальный срок удержания блокировки в миллисекундах
+     * @return 1 если блокировка освобождена, 0 если она уже принадлежит другому экземпляру
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_locks"))
+    @Query(value = "UPDATE job_locks"
+            + " SET locked_until = GREATEST(now(), locked_at + :lockAtLeastMillis * INTERVAL '1 millisecond')"
+            + " WHERE name = :name AND locked_by = :owner",
+            nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner,
+                @Param("lockAtLeastMillis") long lockAtLeastMillis);
+}
@@ -0,0 +1,83 @@
+package com.bank.userservice.repository;
+
+import com.bank.userservice.model.PendingEmail;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с письмами, сохраненными при остановке экземпляров.
+ *
+ * <p>Письмо отправляется прямо из таблицы: экземпляр арендует строки, отправляет
+ * письма и удаляет строку только после успешной отправки.
+ */
+@Repository
+public interface PendingEmailRepository extends JpaRepository<PendingEmail, Long> {
+    /**
+     * Арендует свободные письма и письма с истекшей арендой.
+     *
+     * <p>Строки, уже арендуемые другим экземпляром, пропускаются, поэтому до истечения
+     * аренды каждое письмо отправляет только один экземпляр. Срок считается по часам БД.
+     *
+     * @param limit максимальное количество писем
+     * @param leaseSeconds длительность аренды
+     * @return арендованные письма в порядке сохранения
+     */
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pending_emails"))
+    @Query(value = "UPDATE pending_emails SET claimed_until = now() + make_interval(secs => :leaseSeconds)"
+            + " WHERE id IN (SELECT id FROM pending_emails"
+            + " WHERE claimed_until IS NULL OR claimed_until < now()"
+            + " ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED)"
+            + " RETURNING *",
+            nativeQuery = true)
+    List<PendingEmail> claim(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Сохраняет число попыток неотправленного письма и снимает аренду, чтобы
+     * письмо было отправлено повторно при следующей попытке любого экземпляра.
+     *
+     * @param id идентификатор письма
+     * @param attempts количество неудачных попыток
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pending_emails"))
+    @Query(value = "UPDATE pending_emails SET attempts = :attempts, claimed_until = NULL WHERE id = :id",
+            nativeQuery = true)
+    int recordFailedAttempt(@Param("id") long id, @Param("attempts") int attempts);
+
+    /**
+     * Снимает аренду с писем, которые не пытались отправить.
+     *
+     * @param ids идентификаторы писем
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pending_emails"))
+    @Query(value = "UPDATE pending_emails SET claimed_until = NULL WHERE id IN (:ids)", nativeQuery = true)
+    int release(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Удаляет письмо без предварительной загрузки.
+     *
+     * @param id идентификатор письма
+     * @return количество удаленных строк
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pending_emails"))
+    @Query(value = "DELETE FROM pending_emails WHERE id = :id", nativeQuery = true)
+    int deletePending(@Param("id") long id);
+}
@@ -0,0 +1,48 @@
+package com.bank.userservice.repository;
+
+import com.bank.userservice.model.UsedPowChallenge;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Репозиторий использованных задач proof-of-work.
+ *
+ * <p>Запись выполняется одним атомарным запросом к основной БД, поэтому из нескольких
+ * экземпляров, одновременно проверяющих одно решение, задачу принимает только один.
+ */
+@Repository
+public interface UsedPowChallengeRepository extends JpaRepository<UsedPowChallenge, String> {
+    /**
+     * Отмечает задачу использованной, если она еще не была использована.
+     *
+     * @param nonce nonce задачи
+     * @param ttlSeconds срок хранения записи в секундах
+     * @return 1 если задача отмечена, 0 если она уже использована
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "used_pow_challenges"))
+    @Query(value = "INSERT INTO used_pow_challenges (nonce, expires_at)"
+            + " VALUES (:nonce, now() + :ttlSeconds * INTERVAL '1 second')"
+            + " ON CONFLICT (nonce) DO NOTHING",
+            nativeQuery = true)
+    int tryUse(@Param("nonce") String nonce, @Param("ttlSeconds") long ttlSeconds);
+
+    /**
+     * Удаляет записи с истекшим сроком.
+     *
+     * @return количество удаленных записей
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "used_pow_challenges"))
+    @Query(value = "DELETE FROM used_pow_challenges WHERE expires_at <= now()", nativeQuery = true)
+    int deleteExpired();
+}
@@ -0,0 +1,25 @@
+package com.bank.userservice.repository;
+
+import com.bank.userservice.model.User;
+
+import java.util.Optional;
+
+/**
+ * Поиск пользователей по натуральному идентификатору через кэш второго уровня Hibernate.
+ *
+ * <p>Производные запросы Spring Data всегда выполняют SQL, поэтому поиск по
+ * каноническому email реализован отдельно через {@code Session#bySimpleNaturalId}.
+ */
+public interface UserNaturalIdRepository {
+    /**
+     * Находит пользователя по каноническому email (уникальный индекс uk_users_email_canonical).
+     *
+     * <p>Если соответствие email идентификатору и сам пользователь есть в кэше,
+     * запрос к БД не выполняется.
+     *
+     * @param emailCanonical email в каноническом виде
+     * @return Optional с пользователем, если найден
+     * @see User#canonicalize(String)
+     */
+    Optional<User> findByEmailCanonical(String emailCanonical);
+}
@@ -0,0 +1,29 @@
+package com.bank.userservice.repository;
+
+import com.bank.userservice.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Реализация поиска пользователей по натуральному идентификатору.
+ */
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmailCanonical(String emailCanonical) {
+        if (emailCanonical == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(emailCanonical);
+    }
+}
@@ -1,50 +1,211 @@
 package com.bank.userservice.repository;
 
 import com.bank.userservice.model.User;
+import com.bank.userservice.model.UserCredentials;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 /**
  * Репозиторий для работы с пользователями в базе данных.
  *
  * <p>Наследует стандартные методы JpaRepository и добавляет специализированные:
+ *
+ * <p>Поиск по email разрешается через кэш натуральных идентификаторов, данные для входа -
+ * через кэш запросов Hibernate. Кэш запросов сбрасывается при любом изменении таблицы users
+ * через Hibernate, но локален для экземпляра, поэтому поиск по имени и проверки существования,
+ * на которые опирается проверка уникальности при регистрации, не кэшируются: имя,
+ * зарегистрированное через другой экземпляр, выглядело бы свободным до истечения записи.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
+    /** Выборка данных для входа, покрываемая индексом uk_users_email_canonical */
+    String CREDENTIALS_BY_EMAIL_QUERY = "SELECT new com.bank.userservice.model.UserCredentials("
+            + "u.id, u.username, u.email, u.password, u.emailVerified, u.emailVerificationTokenExpiresAt, u.createdAt)"
+            + " FROM User u WHERE u.emailCanonical = :emailCanonical";
+
     /**
-     * Находит пользователя по имени.
+     * Находит пользователя по имени без учета регистра и пробелов по краям.
+     *
+     * <p>Выполняется на основной БД: используется проверкой уникальности при регистрации,
+     * и отстающая реплика не увидела бы только что зарегистрированное имя.
      *
      * @param username имя пользователя
      * @return Optional с пользователем, если найден
      */
-    Optional<User> findByUsername(String username);
+    default Optional<User> findByUsername(String username) {
+        return findByUsernameCanonical(User.canonicalize(username));
+    }
+
+    /**
+     * Находит пользователя по email без учета регистра и пробелов по краям.
+     *
+     * @param email адрес электронной почты
+     * @return Optional с пользователем, если найден
+     */
+    default Optional<User> findByEmail(String email) {
+        return findByEmailCanonical(User.canonicalize(email));
+    }
+
+    /**
+     * Находит пользователя по email на основной БД без учета регистра и пробелов по краям.
+     *
+     * <p>Используется проверкой уникальности при регистрации и подтверждением email вместо
+     * {@link #findByEmail(String)}, который читает с реплики через кэш второго уровня.
+     *
+     * @param email адрес электронной почты
+     * @return Optional с пользователем, если найден
+     */
+    default Optional<User> findByEmailOnPrimary(String email) {
+        return findByEmailCanonicalOnPrimary(User.canonicalize(email));
+    }
+
+    /**
+     * Находит пользователя по каноническому email на основной БД.
+     *
+     * <p>Транзакция не только для чтения, поэтому соединение берется из пула основной БД.
+     *
+     * @param emailCanonical email в каноническом виде
+     * @return Optional с пользователем, если найден
+     */
+    @Transactional
+    @Query("SELECT u FROM User u WHERE u.emailCanonical = :emailCanonical")
+    Optional<User> findByEmailCanonicalOnPrimary(@Param("emailCanonical") String emailCanonical);
 
     /**
-     * Находит пользователя по email.
+     * Находит пользователя по имени или email без учета регистра и пробелов по краям.
      *
+     * @param username имя пользователя
      * @param email адрес электронной почты
      * @return Optional с пользователем, если найден
      */
-    Optional<User> findByEmail(String email);
+    default Optional<User> findByUsernameOrEmail(String username, String email) {
+        return findByUsernameCanonicalOrEmailCanonical(User.canonicalize(username), User.canonicalize(email));
+    }
 
     /**
-     * Проверяет существование пользователя по имени или email.
+     * Проверяет существование пользователя по имени или email без учета регистра и пробелов по краям.
      *
      * @param username имя пользователя
      * @param email адрес электронной почты
      * @return true если пользователь существует
      */
-    boolean existsByUsernameOrEmail(String username, String email);
+    default boolean existsByUsernameOrEmail(String username, String email) {
+        return existsByUsernameCanonicalOrEmailCanonical(User.canonicalize(username), User.canonicalize(email));
+    }
+
+    /**
+     * Находит данные для входа по email без учета регистра и пробелов по краям.
+     *
+     * @param email адрес электронной почты
+     * @return Optional с данными для входа, если пользователь найден
+     */
+    default Optional<UserCredentials> findCredentialsByEmail(String email) {
+        return findCredentialsByEmailCanonical(User.canonicalize(email));
+    }
+
+    /**
+     * Находит данные для входа по каноническому email.
+     *
+     * <p>Выбирает только столбцы покрывающего индекса {@code uk_users_email_canonical}
+     * в транзакции только для чтения: сущность не загружается и не сбрасывается в БД.
+     *
+     * @param emailCanonical email в каноническом виде
+     * @return Optional с данными для входа, если пользователь найден
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(CREDENTIALS_BY_EMAIL_QUERY)
+    Optional<UserCredentials> findCredentialsByEmailCanonical(@Param("emailCanonical") String emailCanonical);
+
+    /**
+     * Перечитывает данные для входа из основной БД в обход кэша запросов и обновляет кэш.
+     *
+     * <p>Кэш локален для экземпляра, поэтому в нем может остаться неподтвержденная
+     * учетная запись, подтвержденная через другой экземпляр.
+     *
+     * @param email адрес электронной почты
+     * @return Optional с данными для входа, если пользователь найден
+     */
+    default Optional<UserCredentials> refreshCredentialsByEmail(String email) {
+        return refreshCredentialsByEmailCanonical(User.canonicalize(email));
+    }
+
+    /**
+     * Перечитывает данные для входа по каноническому email в обход кэша запросов.
+     *
+     * <p>Выполняется на основной БД: на отстающей реплике подтверждение email
+     * может быть еще не видно.
+     *
+     * @param emailCanonical email в каноническом виде
+     * @return Optional с данными для входа, если пользователь найден
+     */
+    @Transactional
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "REFRESH")
+    })
+    @Query(CREDENTIALS_BY_EMAIL_QUERY)
+    Optional<UserCredentials> refreshCredentialsByEmailCanonical(@Param("emailCanonical") String emailCanonical);
+
+    /**
+     * Находит пользователя по каноническому имени (уникальный индекс uk_users_username_canonical).
+     *
+     * @param usernameCanonical имя пользователя в каноническом виде
+     * @return Optional с пользователем, если найден
+     * @see User#canonicalize(String)
+     */
+    @Transactional
+    Optional<User> findByUsernameCanonical(String usernameCanonical);
+
+    /**
+     * Находит пользователя по каноническому имени или email.
+     *
+     * @param usernameCanonical имя пользователя в каноническом виде
+     * @param emailCanonical email в каноническом виде
+     * @return Optional с пользователем, если найден
+     */
+    @Transactional(readOnly = true)
+    Optional<User> findByUsernameCanonicalOrEmailCanonical(String usernameCanonical, String emailCanonical);
+
+    /**
+     * Проверяет существование пользователя по каноническому имени или email.
+     *
+     * @param usernameCanonical имя пользователя в каноническом виде
+     * @param emailCanonical email в каноническом виде
+     * @return true если пользователь существует
+     */
+    @Transactional(readOnly = true)
+    boolean existsByUsernameCanonicalOrEmailCanonical(String usernameCanonical, String emailCanonical);
 
     /**
-     * Находит всех неподтвержденных пользователей с истекшим сроком верификации.
+     * Удаляет пачку неподтвержденных пользователей с истекшим сроком верификации.
+     *
+     * <p>Удаление выполняется одним запросом без загрузки сущностей. Строки,
+     * заблокированные другими транзакциями, пропускаются и будут удалены в
+     * следующих пачках. Использует частичный индекс
+     * {@code idx_users_unverified_token_expires_at}. Hibernate вытесняет из кэша
+     * второго уровня только пользователей и запросы к таблице users.
      *
      * @param date граничная дата истечения срока
-     * @return список пользователей
+     * @param batchSize максимальное количество удаляемых строк
+     * @return количество удаленных строк
      */
-    List<User> findByEmailVerifiedFalseAndEmailVerificationTokenExpiresAtBefore(LocalDateTime date);
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "DELETE FROM users WHERE id IN ("
+            + "SELECT id FROM users"
+            + " WHERE email_verified = false AND email_verification_token_expires_at < :date"
+            + " LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteExpiredUnverifiedBatch(@Param("date") LocalDateTime date, @Param("batchSize") int batchSize);
 }
\ No newline at end of file
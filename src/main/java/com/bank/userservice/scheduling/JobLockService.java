@@ -0,0 +1,118 @@
+package com.bank.userservice.scheduling;
+
+import com.bank.userservice.repository.JobLockRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис кластерных блокировок задач планировщика на основе таблицы {@code job_locks}.
+ *
+ * <p>Блокировка выдается в аренду на ограниченный срок. Пока задача выполняется,
+ * аренда продлевается фоновым потоком каждую треть срока. Если экземпляр упал
+ * и перестал продлевать аренду, после ее истечения блокировку захватит другой
+ * экземпляр.
+ */
+@Service
+@Slf4j
+public class JobLockService {
+    /** Репозиторий с блокировками задач */
+    private final JobLockRepository jobLockRepository;
+    /** Поток продления аренды блокировок */
+    private final ScheduledExecutorService heartbeatExecutor;
+    /** Идентификатор текущего экземпляра сервиса */
+    @Getter
+    private final String instanceId;
+
+    public JobLockService(JobLockRepository jobLockRepository,
+                          @Value("${app.scheduling.instance-id:}") String instanceId) {
+        this.jobLockRepository = jobLockRepository;
+        this.instanceId = instanceId == null || instanceId.isBlank() ? generateInstanceId() : instanceId;
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lock-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Пытается захватить блокировку задачи.
+     *
+     * @param name имя задачи
+     * @param lease срок аренды
+     * @return true если блокировка захвачена текущим экземпляром
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        return jobLockRepository.tryAcquire(name, instanceId, lease.toMillis()) > 0;
+    }
+
+    /**
+     * Запускает периодическое продление аренды захваченной блокировки.
+     *
+     * @param name имя задачи
+     * @param lease срок аренды
+     * @return задача продления, которую нужно отменить после завершения работы
+     */
+    public ScheduledFuture<?> startHeartbeat(String name, Duration lease) {
+        long period = Math.max(lease.toMillis() / 3, 1);
+        return heartbeatExecutor.scheduleAtFixedRate(() -> extend(name, lease), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Освобождает блокировку задачи.
+     *
+     * @param name имя задачи
+     * @param lockAtLeastFor минимальный срок удержания с момента захвата
+     */
+    public void release(String name, Duration lockAtLeastFor) {
+        if (jobLockRepository.release(name, instanceId, lockAtLeastFor.toMillis()) == 0) {
+            log.warn("Job lock '{}' was taken over by another instance before release", name);
+        }
+    }
+
+    /**
+     * Продлевает аренду блокировки.
+     *
+     * @param name имя задачи
+     * @param lease срок аренды
+     */
+    private void extend(String name, Duration lease) {
+        try {
+            if (jobLockRepository.extend(name, instanceId, lease.toMillis()) == 0) {
+                log.warn("Job lock '{}' lost: lease expired and was taken over by another instance", name);
+            }
+        } catch (RuntimeException e) {
+            // Исключение отменило бы периодическое продление, поэтому только логируем его
+            log.warn("Failed to extend job lock '{}': {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает продление аренды при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+    }
+
+    private static String generateInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.bank.userservice.scheduling;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import com.bank.userservice.id.IdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Аспект, выдающий каждому запуску задачи планировщика собственный rqid.
+ *
+ * <p>Логи задачи связываются между собой так же, как логи HTTP запроса,
+ * а сервисы, читающие rqid из {@link RequestContext}, работают без изменений.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ScheduledJobContextAspect {
+    private final RequestContext requestContext;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Выполняет задачу с rqid вида {@code JOB_<метод>_<идентификатор IdGenerator>}.
+     *
+     * @param joinPoint вызов задачи
+     * @return результат задачи
+     * @throws Throwable исключение задачи
+     */
+    @Around("@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    public Object runWithContext(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestContext.Snapshot previous = RequestContext.capture();
+        requestContext.setRqid(idGenerator.nextId("JOB_" + joinPoint.getSignature().getName() + "_"));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            previous.restore();
+        }
+    }
+}
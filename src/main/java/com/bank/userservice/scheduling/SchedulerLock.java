@@ -0,0 +1,49 @@
+package com.bank.userservice.scheduling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Помечает задачу планировщика, которую в кластере должен выполнять только один экземпляр.
+ *
+ * <p>Перед запуском задачи захватывается блокировка в таблице {@code job_locks}.
+ * Если блокировку держит другой экземпляр, запуск пропускается. Пока задача
+ * выполняется, аренда продлевается; если экземпляр упал, блокировку захватит
+ * другой экземпляр после истечения аренды.
+ *
+ * <pre>
+ * &#64;Scheduled(cron = "0 0 3 * * ?")
+ * &#64;SchedulerLock(name = "cleanupUnverifiedUsers", lockAtLeastForSeconds = 60)
+ * public void cleanupUnverifiedUsers() { ... }
+ * </pre>
+ *
+ * @see SchedulerLockAspect
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SchedulerLock {
+    /**
+     * @return уникальное имя задачи (не длиннее 64 символов)
+     */
+    String name();
+
+    /**
+     * Срок аренды блокировки. Если экземпляр перестал продлевать аренду,
+     * по истечении этого срока задачу сможет запустить другой экземпляр.
+     *
+     * @return срок аренды в секундах
+     */
+    long leaseSeconds() default 300;
+
+    /**
+     * Минимальный срок удержания блокировки с момента захвата. Защищает от
+     * повторного запуска задачи экземпляром, который сработал чуть позже.
+     *
+     * @return минимальный срок удержания в секундах
+     */
+    long lockAtLeastForSeconds() default 0;
+}
@@ -0,0 +1,52 @@
+package com.bank.userservice.scheduling;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Аспект, выполняющий методы с {@link SchedulerLock} только на экземпляре,
+ * захватившем блокировку задачи.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLockAspect {
+    /** Сервис кластерных блокировок */
+    private final JobLockService jobLockService;
+
+    /**
+     * Захватывает блокировку, выполняет задачу с продлением аренды и освобождает блокировку.
+     *
+     * @param joinPoint вызов задачи
+     * @param schedulerLock параметры блокировки
+     * @return результат задачи или null, если задачу выполняет другой экземпляр
+     * @throws Throwable исключение задачи
+     */
+    @Around("@annotation(schedulerLock)")
+    public Object runLocked(ProceedingJoinPoint joinPoint, SchedulerLock schedulerLock) throws Throwable {
+        String name = schedulerLock.name();
+        Duration lease = Duration.ofSeconds(schedulerLock.leaseSeconds());
+
+        if (!jobLockService.tryAcquire(name, lease)) {
+            log.debug("Job '{}' is locked by another instance, skipping", name);
+            return null;
+        }
+
+        log.debug("Job '{}' locked by {}", name, jobLockService.getInstanceId());
+        ScheduledFuture<?> heartbeat = jobLockService.startHeartbeat(name, lease);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            heartbeat.cancel(false);
+            jobLockService.release(name, Duration.ofSeconds(schedulerLock.lockAtLeastForSeconds()));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.bank.userservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Подписывает и проверяет stateless токены CAPTCHA-задач с помощью HMAC-SHA256.
+ *
+ * <p>Сервер не хранит выданные задачи: всё необходимое для проверки
+ * содержится в токене, а подпись гарантирует, что токен выдан этим сервисом.
+ * Для работы нескольких реплик ключ {@code app.captcha.secret} должен быть общим.
+ */
+@Component
+@Slf4j
+public class ChallengeSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /** Экземпляр Mac не потокобезопасен, поэтому у каждого потока свой */
+    private final ThreadLocal<Mac> mac;
+
+    public ChallengeSigner(@Value("${app.captcha.secret:}") String secret) {
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            log.warn("app.captcha.secret is not set, using a random key: captcha tokens will not be valid across replicas or restarts");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(keySpec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC is not available", e);
+            }
+        });
+    }
+
+    /**
+     * Вычисляет подпись данных.
+     *
+     * @param payload подписываемые данные
+     * @return подпись в формате base64url без выравнивания
+     */
+    public String sign(String payload) {
+        return ENCODER.encodeToString(mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Проверяет подпись данных за постоянное время.
+     *
+     * @param payload   подписанные данные
+     * @param signature подпись из токена
+     * @return true если подпись верна
+     */
+    public boolean verify(String payload, String signature) {
+        return MessageDigest.isEqual(
+                sign(payload).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+}
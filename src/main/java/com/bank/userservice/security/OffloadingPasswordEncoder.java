@@ -0,0 +1,61 @@
+package com.bank.userservice.security;
+
+import com.bank.userservice.concurrent.VirtualThreads;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * PasswordEncoder, выносящий хеширование из виртуальных потоков в ограниченный пул.
+ *
+ * <p>BCrypt занимает процессор на десятки миллисекунд. Выполняясь в виртуальном потоке,
+ * он удерживает поток-носитель, которых столько же, сколько процессоров, и задерживает
+ * все остальные запросы. Поэтому из виртуального потока хеширование передается в пул
+ * платформенных потоков, а виртуальный поток на время ожидания освобождает носитель.
+ * Вызовы из платформенных потоков выполняются на месте.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final Executor executor;
+
+    /**
+     * @param delegate кодировщик, выполняющий хеширование
+     * @param executor ограниченный пул для хеширования
+     */
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return offload(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return offload(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T offload(Supplier<T> task) {
+        if (!VirtualThreads.isVirtual(Thread.currentThread())) {
+            return task.get();
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
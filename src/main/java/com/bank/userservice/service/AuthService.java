@@ -4,9 +4,11 @@ import com.bank.userservice.dto.EmailVerificationDto;
 import com.bank.userservice.dto.LoginDto;
 import com.bank.userservice.dto.RegistrationDto;
 import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
 import com.bank.userservice.exception.AccountExpiredException;
 import com.bank.userservice.exception.EmailNotVerifiedException;
 import com.bank.userservice.model.User;
+import com.bank.userservice.model.UserCredentials;
 import com.bank.userservice.mapper.UserMapper;
 import com.bank.userservice.repository.log.ApplicationLogRepository;
 import com.bank.userservice.repository.UserRepository;
@@ -16,18 +18,23 @@ import jakarta.mail.MessagingException;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
 
 import static com.bank.userservice.model.log.enums.LogLevel.*;
 
@@ -41,6 +48,8 @@ import static com.bank.userservice.model.log.enums.LogLevel.*;
 @Slf4j
 @Data
 public class AuthService {
+    /** Столбец email в сообщении PostgreSQL о нарушении уникальности: {@code Key (email)=(...)} */
+    private static final Pattern EMAIL_KEY_DETAIL = Pattern.compile("Key \\(email(_canonical)?\\)=");
 
     private final PasswordEncoder passwordEncoder;
     private final CaptchaService captchaService;
@@ -50,6 +59,12 @@ public class AuthService {
     private final String loggerName = this.getClass().getName();
     private final IntegrationLogService integrationLogService;
     private final EmailService emailService;
+    /** Пул для блокирующих шагов регистрации (CAPTCHA, запросы к БД) */
+    @Qualifier("authIoExecutor")
+    private final Executor authIoExecutor;
+    /** Пул для хеширования паролей */
+    @Qualifier("passwordHashExecutor")
+    private final Executor passwordHashExecutor;
     /**
      * Срок действия токена */
     @Value("${email.verification.token.expiration.minutes}")
@@ -60,13 +75,20 @@ public class AuthService {
      *
      * <p>Процесс регистрации включает:
      * <ol>
-     *   <li>Проверку капчи</li>
      *   <li>Валидацию обязательных полей</li>
-     *   <li>Проверку на существование пользователя с таким же email/username</li>
+     *   <li>Параллельно: проверку капчи, проверку на существование пользователя
+     *   с таким же email/username и хеширование пароля</li>
      *   <li>Создание новой учетной записи</li>
      *   <li>Отправку email для подтверждения регистрации</li>
      * </ol>
      *
+     * <p>Шаги выполняются в пулах {@code authIoExecutor} и {@code passwordHashExecutor},
+     * вызывающий поток не блокируется. Метод намеренно не транзакционный: пока
+     * параллельные шаги используют соединения с БД, запрос не должен удерживать
+     * собственное соединение, иначе под нагрузкой пул соединений исчерпывается.
+     * Удаление устаревшей записи и сохранение нового пользователя выполняются
+     * в транзакциях репозитория.
+     *
      * @param registrationDto DTO содержащий данные для регистрации:
      *                       <ul>
      *                         <li>username (2-20 символов)</li>
@@ -81,20 +103,19 @@ public class AuthService {
      *           <li>message - статус операции</li>
      *           <li>user - данные зарегистрированного пользователя</li>
      *         </ul>
-     * @throws IllegalArgumentException если не заполнены обязательные поля
-     * @throws BadCredentialsException если:
+     *         Завершается с ошибкой:
      *         <ul>
-     *           <li>Пользователь с таким email/username уже существует</li>
-     *           <li>Аккаунт не подтвержден, но срок токена еще действует</li>
+     *           <li>BadCredentialsException - пользователь с таким email/username уже существует
+     *           или аккаунт не подтвержден, но срок токена еще действует</li>
+     *           <li>JsonProcessingException - при ошибках обработки JSON</li>
+     *           <li>MessagingException - при ошибках отправки email</li>
      *         </ul>
-     * @throws JsonProcessingException при ошибках обработки JSON
-     * @throws MessagingException при ошибках отправки email
+     * @throws IllegalArgumentException если не заполнены обязательные поля
      *
      * @see RegistrationDto
      * @see AuthResponseDto
      */
-    @Transactional
-    public AuthResponseDto register(RegistrationDto registrationDto) throws JsonProcessingException, MessagingException {
+    public CompletableFuture<AuthResponseDto<AuthResultDto>> registerAsync(RegistrationDto registrationDto) {
         String rqid = registrationDto.getRqid();
 
         applicationLogService.log(INFO,
@@ -102,8 +123,6 @@ public class AuthService {
                 rqid,
                 loggerName);
 
-        captchaService.verifyCaptcha(registrationDto);
-        //User user = registerUser(dto);
         String username = registrationDto.getUsername();
         String email = registrationDto.getEmail();
 
@@ -113,28 +132,135 @@ public class AuthService {
             throw new IllegalArgumentException("Registration data is incorrect");
         }
 
-        // Проверка существующих пользователей
-        Optional<User> existingUserByUsername = userRepository.findByUsername(username);
-        Optional<User> existingUserByEmail = userRepository.findByEmail(email);
+        // Независимые шаги выполняются параллельно: время регистрации определяется самым медленным из них.
+        // Уникальность проверяется на основной БД: реплика может еще не видеть недавнюю регистрацию
+        CompletableFuture<Void> captcha = CompletableFuture.runAsync(
+                () -> captchaService.verifyCaptcha(registrationDto), authIoExecutor);
+        CompletableFuture<Optional<User>> existingUserByUsername = CompletableFuture.supplyAsync(
+                () -> userRepository.findByUsername(username), authIoExecutor);
+        CompletableFuture<Optional<User>> existingUserByEmail = CompletableFuture.supplyAsync(
+                () -> userRepository.findByEmailOnPrimary(email), authIoExecutor);
+        CompletableFuture<String> passwordHash = CompletableFuture.supplyAsync(
+                () -> passwordEncoder.encode(registrationDto.getPassword()), passwordHashExecutor);
+
+        return allOrFirstFailure(captcha, existingUserByUsername, existingUserByEmail, passwordHash)
+                .thenApplyAsync(ignored -> unchecked(() -> {
+                    // Обработка случая, когда пользователь уже существует
+                    Optional<User> existingUser = existingUserByUsername.join().or(existingUserByEmail::join);
+                    if (existingUser.isPresent()) {
+                        handleExistingUser(existingUser.get(), registrationDto);
+                    }
+                    User user = createNewUser(registrationDto, passwordHash.join());
+
+                    applicationLogService.log(INFO,
+                            "User " + registrationDto.getUsername() + " registered successfully ",
+                            rqid,
+                            loggerName);
+
+                    return integrationLogService.logInteraction(
+                            new AuthResultDto("Registration successful", UserMapper.usertoUserResponseDto(user)));
+                }), authIoExecutor);
+    }
 
-        // Обработка случая, когда пользователь уже существует
-        if (existingUserByUsername.isPresent() || existingUserByEmail.isPresent()) {
-            handleExistingUser(existingUserByUsername.orElseGet(() -> existingUserByEmail.get()),
-                    registrationDto);
+    /**
+     * Регистрирует нового пользователя, ожидая завершения регистрации в вызывающем потоке.
+     *
+     * @param registrationDto DTO содержащий данные для регистрации
+     * @return AuthResponseDto с результатом регистрации
+     * @throws IllegalArgumentException если не заполнены обязательные поля
+     * @throws BadCredentialsException если пользователь уже существует или аккаунт не подтвержден
+     * @throws JsonProcessingException при ошибках обработки JSON
+     * @throws MessagingException при ошибках отправки email
+     *
+     * @see #registerAsync(RegistrationDto)
+     */
+    public AuthResponseDto<AuthResultDto> register(RegistrationDto registrationDto) throws JsonProcessingException, MessagingException {
+        try {
+            return registerAsync(registrationDto).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JsonProcessingException jsonException) {
+                throw jsonException;
+            }
+            if (e.getCause() instanceof MessagingException messagingException) {
+                throw messagingException;
+            }
+            throw propagate(e);
         }
-        User user = createNewUser(registrationDto);
+    }
 
-        applicationLogService.log(INFO,
-                "User " + registrationDto.getUsername() + " registered successfully ",
-                rqid,
-                loggerName);
+    /**
+     * Объединяет шаги, завершаясь при первой ошибке.
+     *
+     * <p>При ошибке одного из шагов остальные отменяются: задачи, еще стоящие
+     * в очереди пула, не будут запущены. Результат завершается исключением шага.
+     *
+     * @param steps параллельно выполняемые шаги
+     * @return future, завершающийся после всех шагов или при первой ошибке
+     */
+    private static CompletableFuture<Void> allOrFirstFailure(CompletableFuture<?>... steps) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        for (CompletableFuture<?> step : steps) {
+            step.whenComplete((value, error) -> {
+                if (error != null && result.completeExceptionally(unwrap(error))) {
+                    for (CompletableFuture<?> other : steps) {
+                        other.cancel(true);
+                    }
+                }
+            });
+        }
+        CompletableFuture.allOf(steps).thenRun(() -> result.complete(null));
+        return result;
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Registration successful");
-        response.put("user", UserMapper.usertoUserResponseDto(user));
+    /**
+     * Шаг конвейера, выбрасывающий проверяемые исключения.
+     *
+     * @param <T> тип результата
+     */
+    @FunctionalInterface
+    private interface CheckedStep<T> {
+        T get() throws Exception;
+    }
 
+    /**
+     * Выполняет шаг конвейера, оборачивая проверяемые исключения в CompletionException.
+     *
+     * @param step шаг конвейера
+     * @return результат шага
+     */
+    private static <T> T unchecked(CheckedStep<T> step) {
+        try {
+            return step.get();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
 
-        return integrationLogService.logInteraction(response);
+    /**
+     * @param error исключение шага конвейера
+     * @return исходное исключение без обертки CompletionException
+     */
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Пробрасывает непроверяемое исключение конвейера как есть.
+     *
+     * @param e исключение конвейера
+     * @return исключение для выброса, если причина проверяемая
+     */
+    private static RuntimeException propagate(CompletionException e) {
+        Throwable cause = unwrap(e);
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
     }
 
     /**
@@ -163,7 +289,7 @@ public class AuthService {
         String rqid = registrationDto.getRqid();
         // Если аккаунт подтверждён - ошибка
         if (existingUser.isEmailVerified()) {
-            String message = existingUser.getUsername().equals(registrationDto.getUsername())
+            String message = existingUser.getUsernameCanonical().equals(User.canonicalize(registrationDto.getUsername()))
                     ? "Username already exists"
                     : "Email already registered";
 
@@ -198,31 +324,33 @@ public class AuthService {
      * <p>Выполняет:
      * <ol>
      *   <li>Создание новой учетной записи</li>
-     *   <li>Хеширование пароля</li>
+     *   <li>Сохранение заранее вычисленного хеша пароля</li>
      *   <li>Генерацию токена верификации email</li>
      *   <li>Установку срока действия токена (24 часа по умолчанию)</li>
      *   <li>Отправку письма с подтверждением</li>
      * </ol>
      *
      * @param registrationDto DTO с данными для регистрации
+     * @param passwordHash хеш пароля, вычисленный заранее
      * @return сохраненный объект User со следующими полями:
      *         <ul>
      *           <li>emailVerified = false</li>
      *           <li>emailVerificationToken - сгенерированный токен</li>
      *           <li>emailVerificationTokenExpiresAt - срок действия токена</li>
      *         </ul>
+     * @throws BadCredentialsException если имя или email заняты параллельной регистрацией
      * @throws MessagingException при ошибках отправки email подтверждения
      *
      * @see RegistrationDto
      * @see User
      */
-    private User createNewUser(RegistrationDto registrationDto) throws MessagingException {
+    private User createNewUser(RegistrationDto registrationDto, String passwordHash) throws MessagingException {
         User user = new User();
         user.setUsername(registrationDto.getUsername());
         user.setEmail(registrationDto.getEmail());
         user.setEmailVerified(false);
 
-        user.setPassword(passwordEncoder.encode(registrationDto.getPassword()));
+        user.setPassword(passwordHash);
 
         String token = UUID.randomUUID() + "-" + System.currentTimeMillis();
         user.setEmailVerificationToken(token);
@@ -230,12 +358,42 @@ public class AuthService {
                 LocalDateTime.now().plusMinutes(tokenExpirationMinutes)
         );
 
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Проверка уникальности прошла, но имя или email успели занять параллельной регистрацией
+            String message = isEmailConstraint(e) ? "Email already registered" : "Username already exists";
+            applicationLogService.log(WARN,
+                    "Registration conflicted with a concurrent registration: " + message,
+                    registrationDto.getRqid(),
+                    loggerName);
+            throw new BadCredentialsException(message);
+        }
         emailService.sendVerificationEmail(registrationDto.getEmail(), token, registrationDto.getRqid());
 
         return savedUser;
     }
 
+    /**
+     * Определяет, нарушено ли ограничение уникальности email.
+     *
+     * <p>Ограничение определяется по имени, а если имя не наше (например, названо Hibernate
+     * в базе, созданной ddl-auto=update), по столбцу в сообщении PostgreSQL.
+     *
+     * @param e ошибка сохранения пользователя
+     * @return true если нарушено ограничение на email, false если на имя пользователя
+     */
+    private static boolean isEmailConstraint(DataIntegrityViolationException e) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName()
+                : null;
+        if (constraint != null && constraint.contains("uk_users_email")) {
+            return true;
+        }
+        return EMAIL_KEY_DETAIL.matcher(String.valueOf(e.getMostSpecificCause().getMessage())).find();
+    }
+
     /**
      * Проверяет и подтверждает email пользователя на основе переданного токена верификации.
      *
@@ -267,7 +425,7 @@ public class AuthService {
      * @see AuthResponseDto
      */
     @Transactional
-    public AuthResponseDto verifyEmail(EmailVerificationDto emailVerificationDto) throws JsonProcessingException {
+    public AuthResponseDto<AuthResultDto> verifyEmail(EmailVerificationDto emailVerificationDto) throws JsonProcessingException {
         String rqid = emailVerificationDto.getRqid();
 
         applicationLogService.log(INFO,
@@ -275,8 +433,9 @@ public class AuthService {
                 rqid,
                 loggerName);
 
-        // Находим пользователя
-        User user = userRepository.findByEmail(emailVerificationDto.getEmail())
+        // Находим пользователя на основной БД в обход кэша: учетная запись могла быть удалена
+        // и зарегистрирована заново на другом экземпляре, и в кэше остались прежние id и токен
+        User user = userRepository.findByEmailOnPrimary(emailVerificationDto.getEmail())
                 .orElseThrow(() -> {
                     applicationLogService.log(ERROR,
                             "User not found for email: " + emailVerificationDto.getEmail(),
@@ -318,9 +477,7 @@ public class AuthService {
         user.setEmailVerificationTokenExpiresAt(null);
         userRepository.save(user);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Email successfully verified");
-        response.put("user", UserMapper.usertoUserResponseDto(user));
+        AuthResultDto response = new AuthResultDto("Email successfully verified", UserMapper.usertoUserResponseDto(user));
 
         applicationLogService.log(INFO,
                 "Email verified successfully for: " + emailVerificationDto.getEmail(),
@@ -343,6 +500,9 @@ public class AuthService {
      *   <li>Логирование успешной аутентификации</li>
      * </ol>
      *
+     * <p>Запросы к БД и отправка уведомления выполняются в пуле {@code authIoExecutor},
+     * сравнение хешей - в {@code passwordHashExecutor}, вызывающий поток не блокируется.
+     *
      * @param loginDto DTO содержащий данные для входа:
      *                <ul>
      *                  <li>email (обязательное поле)</li>
@@ -354,20 +514,19 @@ public class AuthService {
      *           <li>message - статус операции ("Login successful")</li>
      *           <li>user - данные аутентифицированного пользователя</li>
      *         </ul>
-     * @throws IllegalArgumentException если не заполнены обязательные поля
-     * @throws BadCredentialsException если:
+     *         Завершается с ошибкой:
      *         <ul>
-     *           <li>Пользователь с указанным email не найден</li>
-     *           <li>Неверный пароль</li>
+     *           <li>BadCredentialsException - пользователь с указанным email не найден или неверный пароль</li>
+     *           <li>AccountExpiredException - срок регистрации истек (email не подтвержден вовремя)</li>
+     *           <li>EmailNotVerifiedException - email не подтвержден (но срок еще действует)</li>
+     *           <li>JsonProcessingException - при ошибках сериализации ответа</li>
      *         </ul>
-     * @throws AccountExpiredException если срок регистрации истек (email не подтвержден вовремя)
-     * @throws EmailNotVerifiedException если email не подтвержден (но срок еще действует)
-     * @throws JsonProcessingException при ошибках сериализации ответа
+     * @throws IllegalArgumentException если не заполнены обязательные поля
      *
      * @see LoginDto
      * @see AuthResponseDto
      */
-    public AuthResponseDto login(LoginDto loginDto) throws JsonProcessingException {
+    public CompletableFuture<AuthResponseDto<AuthResultDto>> loginAsync(LoginDto loginDto) {
         String rqid = loginDto.getRqid();
         applicationLogService.log(INFO,
                 "Login attempt processing for: " + loginDto.getEmail(),
@@ -383,8 +542,46 @@ public class AuthService {
             throw new IllegalArgumentException("Login information is incorrect");
         }
 
-        // Проверка существует ли такой пользователь
-        User user = userRepository.findByEmail(loginDto.getEmail())
+        return CompletableFuture.supplyAsync(() -> findActiveCredentials(loginDto, rqid), authIoExecutor)
+                .thenApplyAsync(user -> checkPassword(user, loginDto.getPassword(), rqid), passwordHashExecutor)
+                .thenApplyAsync(user -> unchecked(() -> completeLogin(user, rqid)), authIoExecutor);
+    }
+
+    /**
+     * Выполняет аутентификацию пользователя, ожидая ее завершения в вызывающем потоке.
+     *
+     * @param loginDto DTO содержащий данные для входа
+     * @return AuthResponseDto с результатом аутентификации
+     * @throws IllegalArgumentException если не заполнены обязательные поля
+     * @throws BadCredentialsException если пользователь не найден или пароль неверный
+     * @throws AccountExpiredException если срок регистрации истек
+     * @throws EmailNotVerifiedException если email не подтвержден
+     * @throws JsonProcessingException при ошибках сериализации ответа
+     *
+     * @see #loginAsync(LoginDto)
+     */
+    public AuthResponseDto<AuthResultDto> login(LoginDto loginDto) throws JsonProcessingException {
+        try {
+            return loginAsync(loginDto).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JsonProcessingException jsonException) {
+                throw jsonException;
+            }
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Находит данные для входа и проверяет статус учетной записи.
+     *
+     * @param loginDto DTO с данными входа
+     * @param rqid идентификатор запроса
+     * @return данные для входа пользователя
+     * @throws BadCredentialsException если пользователь не найден
+     */
+    private UserCredentials findActiveCredentials(LoginDto loginDto, String rqid) {
+        // Проверка существует ли такой пользователь (только поля, нужные для входа)
+        UserCredentials user = userRepository.findCredentialsByEmail(loginDto.getEmail())
                 .orElseThrow(() -> {
                     applicationLogService.log(ERROR,
                             "Login attempt for non-existent user: " + loginDto.getEmail(),
@@ -394,37 +591,63 @@ public class AuthService {
                     return new BadCredentialsException("Invalid username or password");
                 });
 
+        if (!user.emailVerified()) {
+            // Кэш локален для экземпляра: email мог быть подтвержден через другой экземпляр
+            user = userRepository.refreshCredentialsByEmail(loginDto.getEmail()).orElse(user);
+        }
         checkAccountStatus(user, rqid);
+        return user;
+    }
 
+    /**
+     * Сравнивает пароль с хешем.
+     *
+     * @param user данные для входа пользователя
+     * @param password введенный пароль
+     * @param rqid идентификатор запроса
+     * @return те же данные для входа, если пароль верный
+     * @throws BadCredentialsException если пароль неверный
+     */
+    private UserCredentials checkPassword(UserCredentials user, String password, String rqid) {
 //        applicationLogService.log(DEBUG,
 //                "Verifying password for user: " + user.getUsername(),
 //                rqid,
 //                loggerName);
 
         // Проверка зашифрованных паролей
-        if (!passwordEncoder.matches(loginDto.getPassword(), user.getPassword())) {
+        if (!passwordEncoder.matches(password, user.passwordHash())) {
             applicationLogService.log(ERROR,
-                    "Invalid password attempt for user: " + user.getUsername(),
+                    "Invalid password attempt for user: " + user.username(),
                     rqid,
                     loggerName);
 
             throw new BadCredentialsException("Invalid username or password");
         }
+        return user;
+    }
 
-        emailService.sendLoginNotification(user.getEmail(), user.getUsername(), rqid);
+    /**
+     * Отправляет уведомление о входе и формирует ответ.
+     *
+     * @param user данные для входа пользователя
+     * @param rqid идентификатор запроса
+     * @return AuthResponseDto с результатом аутентификации
+     * @throws JsonProcessingException при ошибках сериализации ответа
+     */
+    private AuthResponseDto<AuthResultDto> completeLogin(UserCredentials user, String rqid) throws JsonProcessingException {
+        emailService.sendLoginNotification(user.email(), user.username(), rqid);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Login successful");
-        response.put("user", UserMapper.usertoUserResponseDto(user));
+        AuthResultDto response = new AuthResultDto("Login successful", UserMapper.credentialsToUserResponseDto(user));
         applicationLogService.log(
                 INFO,
-                "User " + user.getUsername() + " logged in successfully",
+                "User " + user.username() + " logged in successfully",
                 rqid,
                 loggerName
         );
 
         return integrationLogService.logInteraction(response);
     }
+
     /**
      * Проверяет статус учетной записи пользователя перед аутентификацией.
      *
@@ -434,15 +657,15 @@ public class AuthService {
      *   <li>Актуален ли срок действия токена верификации (если email не подтвержден)</li>
      * </ol>
      *
-     * @param user пользователь, для которого происходит проверка
+     * @param user данные для входа пользователя, для которого происходит проверка
      * @param rqid идентификатор запроса (для логирования в случае неудачи)
      * @throws AccountExpiredException если истек срок действия токена
      * @throws EmailNotVerifiedException если срок действия токена не истек и email не подтвержден
      */
-    private void checkAccountStatus(User user, String rqid) {
-        if (!user.isEmailVerified()) {
-            if (user.getEmailVerificationTokenExpiresAt().isBefore(LocalDateTime.now())) {
-                userRepository.delete(user);
+    private void checkAccountStatus(UserCredentials user, String rqid) {
+        if (!user.emailVerified()) {
+            if (user.emailVerificationTokenExpiresAt().isBefore(LocalDateTime.now())) {
+                userRepository.deleteById(user.id());
                 applicationLogService.log(ERROR,
                         "Registration expired. Please register again",
                         rqid,
@@ -1,9 +1,13 @@
 package com.bank.userservice.service;
 
+import com.bank.userservice.dto.MathChallengeDto;
 import com.bank.userservice.dto.RecaptchaResponseDto;
 import com.bank.userservice.dto.RegistrationDto;
 import com.bank.userservice.exception.InvalidCaptchaException;
 import com.bank.userservice.repository.log.ApplicationLogRepository;
+import com.bank.userservice.security.ChallengeSigner;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,9 +15,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.bank.userservice.model.log.enums.LogLevel.*;
 
@@ -23,7 +30,9 @@ import static com.bank.userservice.model.log.enums.LogLevel.*;
  * <p>Поддерживаемые типы CAPTCHA:
  * <ul>
  *   <li><b>reCAPTCHA</b> - проверка через Google API</li>
- *   <li><b>Математическая CAPTCHA</b> - решение простых арифметических задач</li>
+ *   <li><b>Математическая CAPTCHA</b> - решение простых арифметических задач,
+ *   выданных сервером с HMAC-подписанным токеном</li>
+ *   <li><b>Proof-of-work</b> - подбор решения hashcash-задачи в браузере</li>
  * </ul>
  *
  * <p>Сервис выполняет:
@@ -33,26 +42,40 @@ import static com.bank.userservice.model.log.enums.LogLevel.*;
  *   <li>Интеграцию с внешними сервисами (Google reCAPTCHA)</li>
  *   <li>Генерацию ошибок при неудачной проверке</li>
  * </ul>
+ *
+ * <p>Вызовы Google API защищены circuit breaker'ом {@value #RECAPTCHA_CIRCUIT_BREAKER}.
+ * Пока reCAPTCHA недоступна, проверка переключается на математическую CAPTCHA.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 @Data
 public class CaptchaService {
+    /** Имя circuit breaker'а для reCAPTCHA */
+    public static final String RECAPTCHA_CIRCUIT_BREAKER = "recaptcha";
     // Секретный ключ для reCAPTCHA
     @Value("${recaptcha.secret-key}")
     private String secretKey;
-    // Клиент для HTTP-запросов к сервису reCAPTCHA
-    private RestTemplate restTemplate = new RestTemplate();
+    // URL API для проверки reCAPTCHA (настраивается для тестов и нагрузочных стендов)
+    @Value("${recaptcha.verify-url:" + DEFAULT_VERIFY_URL + "}")
+    private String verifyUrl = DEFAULT_VERIFY_URL;
+    // Клиент для HTTP-запросов к сервису reCAPTCHA (пул соединений, см. HttpClientConfig)
+    private final RestTemplate restTemplate;
 
     private final ApplicationLogRepository applicationLogRepository;
-    // URL API для проверки reCAPTCHA
-    private static final String VERIFY_URL = "https://www.google.com/recaptcha/api/siteverify";
+    // URL API для проверки reCAPTCHA по умолчанию
+    private static final String DEFAULT_VERIFY_URL = "https://www.google.com/recaptcha/api/siteverify";
     // Поддерживаемые математические операции
     private static final List<String> SUPPORTED_MATH_OPS = List.of("+", "-", "*");
     // Имя логгера (используется для записи в логи)
     private final String loggerName = this.getClass().getName();
     private final ApplicationLogService applicationLogService;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final ChallengeSigner challengeSigner;
+    private final ProofOfWorkService proofOfWorkService;
+    // Время жизни математической задачи
+    @Value("${app.captcha.math.ttl-seconds:120}")
+    private long mathChallengeTtlSeconds = 120;
 
     /**
      * Проверяет CAPTCHA в зависимости от указанного типа верификации.
@@ -61,13 +84,15 @@ public class CaptchaService {
      * <ul>
      *   <li>"recaptcha" - проверка через Google reCAPTCHA API</li>
      *   <li>"math" - проверка математической CAPTCHA</li>
+     *   <li>"pow" - проверка решения proof-of-work</li>
      * </ul>
      *
      * @param registrationDto DTO регистрации содержащее:
      *           <ul>
-     *             <li>verificationType - тип CAPTCHA ("recaptcha" или "math")</li>
+     *             <li>verificationType - тип CAPTCHA ("recaptcha", "math" или "pow")</li>
      *             <li>recaptchaToken - токен для reCAPTCHA (если выбран этот тип)</li>
-     *             <li>mathToken - математическая задача (если выбран этот тип)</li>
+     *             <li>mathToken и mathAnswer - токен выданной задачи и ответ (если выбран этот тип)</li>
+     *             <li>powChallenge и powSolution - задача proof-of-work и решение (если выбран этот тип)</li>
      *             <li>rqid - идентификатор запроса</li>
      *           </ul>
      * @throws InvalidCaptchaException если:
@@ -88,9 +113,12 @@ public class CaptchaService {
                 rqid,
                 loggerName);
 
+        proofOfWorkService.recordRegistrationAttempt();
+
         boolean verify = switch (registrationDto.getVerificationType()) {
-            case "recaptcha" -> verifyRecaptcha(registrationDto.getRecaptchaToken(), rqid);
-            case "math" -> verifyMathCaptcha(registrationDto.getMathToken(), rqid);
+            case "recaptcha" -> verifyRecaptchaWithFallback(registrationDto);
+            case "math" -> verifyMathCaptcha(registrationDto.getMathToken(), registrationDto.getMathAnswer(), rqid);
+            case "pow" -> verifyProofOfWork(registrationDto.getPowChallenge(), registrationDto.getPowSolution(), rqid);
             default -> {
                 applicationLogService.log(WARN,
                         "Unsupported captcha type: " + registrationDto.getVerificationType(),
@@ -116,6 +144,34 @@ public class CaptchaService {
 
     }
 
+    /**
+     * Проверяет reCAPTCHA через circuit breaker.
+     *
+     * <p>Если Google API недоступен (ошибка вызова или разомкнутый breaker),
+     * проверяется математическая CAPTCHA из того же запроса. Если она не передана,
+     * клиенту возвращается ошибка с просьбой решить математическую задачу.
+     *
+     * @param registrationDto DTO регистрации
+     * @return результат проверки
+     * @throws InvalidCaptchaException если reCAPTCHA недоступна и математическая CAPTCHA не передана
+     */
+    private boolean verifyRecaptchaWithFallback(RegistrationDto registrationDto) {
+        String rqid = registrationDto.getRqid();
+        try {
+            return circuitBreakerRegistry.circuitBreaker(RECAPTCHA_CIRCUIT_BREAKER)
+                    .executeSupplier(() -> verifyRecaptcha(registrationDto.getRecaptchaToken(), rqid));
+        } catch (CallNotPermittedException | RestClientException e) {
+            applicationLogService.log(WARN,
+                    "reCAPTCHA is unavailable, falling back to math captcha: " + e.getMessage(),
+                    rqid,
+                    loggerName);
+            if (registrationDto.getMathToken() == null || registrationDto.getMathAnswer() == null) {
+                throw new InvalidCaptchaException("reCAPTCHA is temporarily unavailable, please solve the math captcha");
+            }
+            return verifyMathCaptcha(registrationDto.getMathToken(), registrationDto.getMathAnswer(), rqid);
+        }
+    }
+
     /**
      * Проверяет токен reCAPTCHA через Google API.
      *
@@ -143,7 +199,7 @@ public class CaptchaService {
         params.add("response", token); // Токен от клиента
         // Отправка запроса к API reCAPTCHA
         RecaptchaResponseDto response = restTemplate.postForObject(
-                VERIFY_URL,
+                verifyUrl,
                 params,
                 RecaptchaResponseDto.class
         );
@@ -163,41 +219,59 @@ public class CaptchaService {
     }
 
     /**
-     * Проверяет решение математической CAPTCHA.
+     * Выдает новую математическую CAPTCHA-задачу.
      *
-     * <p>Формат математической задачи:
-     * <pre>"число1 операция число2 = ответ"</pre>
+     * <p>Ответ на задачу не хранится на сервере: он входит в HMAC-подпись токена
+     * вместе со временем истечения и случайным nonce. Формат токена:
+     * <pre>"истечение(epoch секунды).nonce.подпись"</pre>
      *
-     * <p>Поддерживаемые операции:
-     * <ul>
-     *   <li>Сложение (+)</li>
-     *   <li>Вычитание (-)</li>
-     *   <li>Умножение (*)</li>
-     * </ul>
+     * @return задача с подписанным токеном
+     */
+    public MathChallengeDto createMathChallenge() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int num1 = random.nextInt(1, 11);
+        int num2 = random.nextInt(1, 11);
+        String op = SUPPORTED_MATH_OPS.get(random.nextInt(SUPPORTED_MATH_OPS.size()));
+        int answer = switch (op) {
+            case "+" -> num1 + num2;
+            case "-" -> num1 - num2;
+            default -> num1 * num2;
+        };
+
+        Instant expiresAt = Instant.now().plusSeconds(mathChallengeTtlSeconds);
+        String claims = expiresAt.getEpochSecond() + "." + Long.toHexString(random.nextLong());
+        String token = claims + "." + challengeSigner.sign(claims + "." + answer);
+
+        return new MathChallengeDto(num1 + " " + op + " " + num2, token, expiresAt);
+    }
+
+    /**
+     * Проверяет ответ на математическую CAPTCHA, выданную {@link #createMathChallenge()}.
      *
-     * @param mathToken строка с математической задачей в формате "a + b = c"
+     * <p>Проверка локальная и не требует состояния на сервере: одна проверка
+     * HMAC-подписи токена с ответом клиента и проверка срока действия.
+     * Токен может быть использован повторно до истечения срока действия.
+     *
+     * @param mathToken подписанный токен задачи
+     * @param mathAnswer ответ клиента
      * @param rqid идентификатор запроса для логирования
-     * @return true если ответ верный, false в противном случае
-     * @throws InvalidCaptchaException если неверный формат строки с задачей
-     * @throws NumberFormatException если числа в задаче не являются целыми числами
-     * @throws IllegalArgumentException если mathToken некорректный
+     * @return true если ответ верный и токен не истек, false в противном случае
+     * @throws InvalidCaptchaException если неверный формат токена
+     * @throws NumberFormatException если ответ не является целым числом
+     * @throws IllegalArgumentException если токен или ответ не переданы
      */
-    public boolean verifyMathCaptcha(String mathToken, String rqid) {
-//        applicationLogService.log( DEBUG,
-//                "Verifying math captcha. Problem: " + problem + ", Answer: " + answer,
-//                rqid,
-//                loggerName);
-
-        if (mathToken == null) {
+    public boolean verifyMathCaptcha(String mathToken, String mathAnswer, String rqid) {
+        if (mathToken == null || mathAnswer == null) {
             applicationLogService.log(ERROR,
-                    "Math token must be provided",
+                    "Math token and answer must be provided",
                     rqid,
                     loggerName);
-            throw new IllegalArgumentException("Math token must be provided");
+            throw new IllegalArgumentException("Math token and answer must be provided");
         }
-        String[] parts = mathToken.trim().split("\\s+");
+        int lastDot = mathToken.lastIndexOf('.');
+        int firstDot = mathToken.indexOf('.');
 
-        if (parts.length != 5) {
+        if (firstDot <= 0 || lastDot == firstDot) {
             applicationLogService.log(ERROR,
                     "Invalid math token format",
                     rqid,
@@ -205,39 +279,59 @@ public class CaptchaService {
             throw new InvalidCaptchaException("Invalid math token format");
         }
 
-        int userAnswer = Integer.parseInt(parts[4]);
+        int userAnswer = Integer.parseInt(mathAnswer.trim());
+        String claims = mathToken.substring(0, lastDot);
+        long expiresAt = Long.parseLong(mathToken.substring(0, firstDot));
 
-        int num1 = Integer.parseInt(parts[0]);
-        int num2 = Integer.parseInt(parts[2]);
-        String op = parts[1];
+        if (Instant.now().getEpochSecond() > expiresAt) {
+            applicationLogService.log(ERROR,
+                    "Math captcha token expired",
+                    rqid,
+                    loggerName);
+            return false;
+        }
 
+        boolean result = challengeSigner.verify(claims + "." + userAnswer, mathToken.substring(lastDot + 1));
 
-        if (!SUPPORTED_MATH_OPS.contains(op)) {
+        if (!result) {
             applicationLogService.log(ERROR,
-                    "Unsupported math operator: " + op,
+                    "Math captcha failed: wrong answer or tampered token",
                     rqid,
                     loggerName);
+        }
+
+        return result;
+    }
 
-            throw new IllegalArgumentException("Unsupported math operator. Allowed: +, -, *");
+    /**
+     * Проверяет решение задачи proof-of-work.
+     *
+     * @param powChallenge подписанная задача, выданная {@link ProofOfWorkService#createChallenge()}
+     * @param powSolution решение клиента
+     * @param rqid идентификатор запроса для логирования
+     * @return true если решение верное
+     * @throws IllegalArgumentException если задача или решение не переданы
+     * @throws InvalidCaptchaException если неверный формат задачи или решения
+     */
+    public boolean verifyProofOfWork(String powChallenge, String powSolution, String rqid) {
+        if (powChallenge == null || powSolution == null) {
+            applicationLogService.log(ERROR,
+                    "Proof-of-work challenge and solution must be provided",
+                    rqid,
+                    loggerName);
+            throw new IllegalArgumentException("Proof-of-work challenge and solution must be provided");
         }
-        int correctAnswer = switch (op) {
-            case "+" -> num1 + num2;
-            case "-" -> num1 - num2;
-            case "*" -> num1 * num2;
-            default -> throw new IllegalArgumentException("Unsupported math operator");
-        };
 
-        boolean result = userAnswer == correctAnswer;
+        boolean result = proofOfWorkService.verify(powChallenge, powSolution);
 
         if (!result) {
             applicationLogService.log(ERROR,
-                    "Math captcha failed. Expected: " + correctAnswer + ", got: " + userAnswer,
+                    "Proof-of-work failed: expired, tampered or insufficient work",
                     rqid,
                     loggerName);
         }
 
         return result;
-
     }
 
 }
\ No newline at end of file
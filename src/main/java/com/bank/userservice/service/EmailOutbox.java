@@ -0,0 +1,84 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.PendingEmailDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Очередь писем, которые не удалось отправить сразу.
+ *
+ * <p>Используется как деградированный режим {@link EmailService}: когда SMTP сервер
+ * недоступен или circuit breaker разомкнут, письмо ставится в очередь и
+ * отправляется позже планировщиком. Размер очереди ограничен, текущий размер
+ * публикуется как метрика {@code app.email.outbox.size}.
+ */
+@Component
+@Slf4j
+public class EmailOutbox {
+    /** Очередь писем на повторную отправку */
+    private final BlockingQueue<PendingEmailDto> queue;
+
+    public EmailOutbox(@Value("${app.email.outbox.capacity:1000}") int capacity,
+                       MeterRegistry meterRegistry) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        Gauge.builder("app.email.outbox.size", queue, BlockingQueue::size)
+                .description("Number of emails waiting for redelivery")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ставит письмо в очередь на повторную отправку.
+     *
+     * @param email письмо
+     * @return true если письмо принято, false если очередь переполнена
+     */
+    public boolean enqueue(PendingEmailDto email) {
+        boolean accepted = queue.offer(email);
+        if (!accepted) {
+            log.error("Email outbox is full, dropping email to: {}", email.getTo());
+        }
+        return accepted;
+    }
+
+    /**
+     * Извлекает следующее письмо из очереди.
+     *
+     * @return письмо или null, если очередь пуста
+     */
+    public PendingEmailDto poll() {
+        return queue.poll();
+    }
+
+    /**
+     * Извлекает все письма из очереди.
+     *
+     * @return письма в порядке постановки в очередь
+     */
+    public List<PendingEmailDto> drain() {
+        List<PendingEmailDto> emails = new ArrayList<>(queue.size());
+        queue.drainTo(emails);
+        return emails;
+    }
+
+    /**
+     * @return количество писем в очереди
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return количество писем, которое еще можно поставить в очередь
+     */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+}
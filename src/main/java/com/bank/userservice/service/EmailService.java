@@ -1,5 +1,10 @@
 package com.bank.userservice.service;
 
+import com.bank.userservice.dto.PendingEmailDto;
+import com.bank.userservice.model.PendingEmail;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.Data;
@@ -9,12 +14,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import static com.bank.userservice.model.log.enums.LogLevel.ERROR;
 import static com.bank.userservice.model.log.enums.LogLevel.INFO;
+import static com.bank.userservice.model.log.enums.LogLevel.WARN;
 /**
  * Сервис для отправки электронных писем.
  *
@@ -24,14 +35,24 @@ import static com.bank.userservice.model.log.enums.LogLevel.INFO;
  *   <li>Отправка писем для подтверждения email</li>
  *   <li>Логирование результатов отправки</li>
  * </ul>
+ *
+ * <p>Отправка защищена circuit breaker'ом {@value #SMTP_CIRCUIT_BREAKER}. Если SMTP сервер
+ * недоступен или breaker разомкнут, письмо ставится в {@link EmailOutbox} и
+ * отправляется повторно по расписанию, а запрос пользователя не блокируется.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Data
 public class EmailService {
+    /** Имя circuit breaker'а для SMTP */
+    public static final String SMTP_CIRCUIT_BREAKER = "smtp";
+
     private final JavaMailSender mailSender;
     private final ApplicationLogService applicationLogService;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final EmailOutbox emailOutbox;
+    private final EmailSpillService emailSpillService;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -39,6 +60,16 @@ public class EmailService {
     @Value("${app.email.verification-url}")
     private String verificationBaseUrl;
 
+    /** Максимальное количество попыток отправки письма из очереди */
+    @Value("${app.email.outbox.max-attempts:5}")
+    private int maxDeliveryAttempts = 5;
+
+    /** Удерживается во время повторной отправки по расписанию */
+    private final ReentrantLock redeliveryLock = new ReentrantLock();
+
+    /** Экземпляр останавливается: повторная отправка по расписанию больше не выполняется */
+    private volatile boolean redeliveryStopped;
+
     /**
      * Отправляет уведомление о входе в систему.
      *
@@ -68,7 +99,7 @@ public class EmailService {
             Команда поддержки
             """, username, LocalDateTime.now());
 
-        sendEmail(createSimpleMessage(toEmail, subject, text), rqid);
+        deliver(new PendingEmailDto(toEmail, subject, text, false, rqid, 0));
     }
 
     /**
@@ -91,7 +122,197 @@ public class EmailService {
         String verificationUrl = createVerificationUrl(toEmail, token, rqid);
         String htmlContent = createVerificationEmailContent(verificationUrl);
 
-        sendHtmlEmail(createMimeMessage(toEmail, subject, htmlContent), rqid);
+        deliver(new PendingEmailDto(toEmail, subject, htmlContent, true, rqid, 0));
+    }
+
+    /**
+     * Отправляет письмо через circuit breaker.
+     *
+     * <p>При разомкнутом breaker'е или ошибке отправки письмо ставится в очередь
+     * на повторную отправку вместо проброса исключения.
+     *
+     * @param email данные письма
+     */
+    void deliver(PendingEmailDto email) {
+        try {
+            smtpCircuitBreaker().executeCheckedRunnable(() -> send(email));
+        } catch (CallNotPermittedException e) {
+            queueForRedelivery(email, "SMTP circuit breaker is open");
+        } catch (Throwable e) {
+            email.setAttempts(email.getAttempts() + 1);
+            queueForRedelivery(email, "SMTP send failed");
+        }
+    }
+
+    /**
+     * Ставит письмо в очередь на повторную отправку и логирует причину.
+     *
+     * @param email данные письма
+     * @param reason причина отложенной отправки
+     */
+    private void queueForRedelivery(PendingEmailDto email, String reason) {
+        boolean queued = emailOutbox.enqueue(email);
+        applicationLogService.log(queued ? WARN : ERROR,
+                reason + ", email to " + email.getTo() + (queued ? " queued for redelivery" : " dropped: outbox is full"),
+                email.getRqid(),
+                this.getClass().getName());
+    }
+
+    /**
+     * Повторно отправляет письма из очереди, затем письма, сохраненные в БД остановленными
+     * экземплярами (см. {@link EmailSpillService}).
+     *
+     * <p>Останавливается, как только breaker снова размыкается, чтобы не нагружать
+     * недоступный SMTP сервер; при разомкнутом breaker'е письма из БД не арендуются.
+     * Письма, исчерпавшие лимит попыток, отбрасываются с записью в лог.
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.retry-interval-ms:30000}")
+    public void redeliverQueuedEmails() {
+        redeliveryLock.lock();
+        try {
+            if (redeliveryStopped) {
+                return;
+            }
+            redeliver(null);
+            redeliverSpilled();
+        } finally {
+            redeliveryLock.unlock();
+        }
+    }
+
+    /**
+     * Прекращает повторную отправку по расписанию и ждет завершения текущего прохода.
+     *
+     * <p>Вызывается при остановке экземпляра перед {@link #flushOutbox(Duration)}: проход,
+     * забравший письмо из очереди, иначе мог бы вернуть его уже после сохранения очереди в БД.
+     * Текущий проход прерывается после отправки очередного письма.
+     *
+     * @param timeout срок ожидания
+     * @return true если текущий проход завершился (или не выполнялся)
+     */
+    public boolean stopRedelivery(Duration timeout) {
+        redeliveryStopped = true;
+        try {
+            if (redeliveryLock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                redeliveryLock.unlock();
+                return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Отправляет письма из очереди при остановке экземпляра.
+     *
+     * <p>Каждое письмо пробуется один раз. Отправка прекращается по истечении срока
+     * или при размыкании breaker'а, неотправленные письма остаются в очереди.
+     *
+     * @param timeout срок отправки
+     * @return количество писем, оставшихся в очереди
+     */
+    public int flushOutbox(Duration timeout) {
+        redeliver(timeout);
+        return emailOutbox.size();
+    }
+
+    /**
+     * Пробует отправить каждое письмо из очереди один раз.
+     *
+     * @param timeout срок отправки, null - без ограничения
+     */
+    private void redeliver(Duration timeout) {
+        long started = System.nanoTime();
+        int pending = emailOutbox.size();
+        for (int i = 0; i < pending; i++) {
+            if (timeout == null ? redeliveryStopped : System.nanoTime() - started >= timeout.toNanos()) {
+                return;
+            }
+            PendingEmailDto email = emailOutbox.poll();
+            if (email == null) {
+                return;
+            }
+            try {
+                smtpCircuitBreaker().executeCheckedRunnable(() -> send(email));
+            } catch (CallNotPermittedException e) {
+                emailOutbox.enqueue(email);
+                return;
+            } catch (Throwable e) {
+                email.setAttempts(email.getAttempts() + 1);
+                if (email.getAttempts() >= maxDeliveryAttempts) {
+                    logGivingUp(email);
+                } else {
+                    emailOutbox.enqueue(email);
+                }
+            }
+        }
+    }
+
+    /**
+     * Отправляет арендованную пачку писем, сохраненных в БД.
+     *
+     * <p>Строка удаляется только после отправки письма. Неудачная попытка сохраняется
+     * в строке, письма, до которых не дошла очередь из-за breaker'а или остановки
+     * экземпляра, освобождаются для других экземпляров.
+     */
+    private void redeliverSpilled() {
+        CircuitBreaker.State state = smtpCircuitBreaker().getState();
+        if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN) {
+            return;
+        }
+        List<PendingEmail> claimed = emailSpillService.claim();
+        for (int i = 0; i < claimed.size(); i++) {
+            if (redeliveryStopped) {
+                emailSpillService.release(claimed.subList(i, claimed.size()));
+                return;
+            }
+            PendingEmail spilled = claimed.get(i);
+            PendingEmailDto email = new PendingEmailDto(spilled.getRecipient(), spilled.getSubject(),
+                    spilled.getBody(), spilled.isHtml(), spilled.getRqid(), spilled.getAttempts());
+            try {
+                smtpCircuitBreaker().executeCheckedRunnable(() -> send(email));
+                emailSpillService.remove(spilled);
+            } catch (CallNotPermittedException e) {
+                emailSpillService.release(claimed.subList(i, claimed.size()));
+                return;
+            } catch (Throwable e) {
+                spilled.setAttempts(spilled.getAttempts() + 1);
+                if (spilled.getAttempts() >= maxDeliveryAttempts) {
+                    email.setAttempts(spilled.getAttempts());
+                    logGivingUp(email);
+                    emailSpillService.remove(spilled);
+                } else {
+                    emailSpillService.recordFailedAttempt(spilled);
+                }
+            }
+        }
+    }
+
+    private void logGivingUp(PendingEmailDto email) {
+        applicationLogService.log(ERROR,
+                "Giving up on email to " + email.getTo() + " after " + email.getAttempts() + " attempts",
+                email.getRqid(),
+                this.getClass().getName());
+    }
+
+    /**
+     * Собирает сообщение и синхронно отправляет его.
+     *
+     * @param email данные письма
+     * @throws MessagingException при ошибках создания MIME сообщения
+     */
+    private void send(PendingEmailDto email) throws MessagingException {
+        if (email.isHtml()) {
+            sendHtmlEmail(createMimeMessage(email.getTo(), email.getSubject(), email.getBody()), email.getRqid());
+        } else {
+            sendEmail(createSimpleMessage(email.getTo(), email.getSubject(), email.getBody()), email.getRqid());
+        }
+    }
+
+    private CircuitBreaker smtpCircuitBreaker() {
+        return circuitBreakerRegistry.circuitBreaker(SMTP_CIRCUIT_BREAKER);
     }
 
     /**
@@ -0,0 +1,128 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.PendingEmailDto;
+import com.bank.userservice.model.PendingEmail;
+import com.bank.userservice.repository.PendingEmailRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Сохранение очереди писем в БД при остановке экземпляра и отправка сохраненных писем.
+ *
+ * <p>При остановке письма, которые не удалось отправить до истечения срока, сохраняются
+ * в таблицу {@code pending_emails}. Любой работающий экземпляр отправляет их прямо из
+ * таблицы (см. {@link EmailService#redeliverQueuedEmails()}): арендует пачку строк на
+ * {@code app.email.outbox.spill-lease} и удаляет строку только после отправки письма.
+ * Если экземпляр остановится, не отправив арендованные письма, их заберет другой
+ * экземпляр после истечения аренды, поэтому письма не теряются при последовательном
+ * обновлении экземпляров (письмо, отправленное перед аварийной остановкой, может
+ * быть отправлено повторно).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailSpillService {
+    private final PendingEmailRepository pendingEmailRepository;
+
+    /** Максимальное количество писем, арендуемых за один раз */
+    @Value("${app.email.outbox.spill-batch-size:20}")
+    private int batchSize = 20;
+
+    /** Срок аренды пачки писем, должен покрывать ее отправку */
+    @Value("${app.email.outbox.spill-lease:5m}")
+    private Duration lease = Duration.ofMinutes(5);
+
+    /**
+     * Сохраняет неотправленные письма в БД.
+     *
+     * <p>Если БД недоступна, получатели и rqid писем пишутся в журнал.
+     *
+     * @param emails письма
+     * @return количество сохраненных писем
+     */
+    public int spill(List<PendingEmailDto> emails) {
+        if (emails.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            pendingEmailRepository.saveAll(emails.stream()
+                    .map(email -> new PendingEmail(null, email.getTo(), email.getSubject(), email.getBody(),
+                            email.isHtml(), email.getRqid(), email.getAttempts(), now, null))
+                    .toList());
+            log.info("Spilled {} unsent emails to pending_emails", emails.size());
+            return emails.size();
+        } catch (DataAccessException e) {
+            log.error("Failed to spill {} unsent emails: {}", emails.size(), e.getMessage());
+            emails.forEach(email -> log.error("Lost email to {}, rqid {}", email.getTo(), email.getRqid()));
+            return 0;
+        }
+    }
+
+    /**
+     * Арендует пачку сохраненных писем для отправки.
+     *
+     * @return арендованные письма, пустой список если писем нет или БД недоступна
+     */
+    public List<PendingEmail> claim() {
+        try {
+            return pendingEmailRepository.claim(batchSize, lease.toSeconds());
+        } catch (DataAccessException e) {
+            log.warn("Failed to claim spilled emails: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Удаляет отправленное или отброшенное письмо.
+     *
+     * <p>Если удалить не удалось, письмо будет отправлено повторно после истечения аренды.
+     *
+     * @param email письмо
+     */
+    public void remove(PendingEmail email) {
+        try {
+            pendingEmailRepository.deletePending(email.getId());
+        } catch (DataAccessException e) {
+            log.warn("Failed to delete spilled email {}: {}", email.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Сохраняет число попыток неотправленного письма и освобождает его для следующей попытки.
+     *
+     * @param email письмо с увеличенным числом попыток
+     */
+    public void recordFailedAttempt(PendingEmail email) {
+        try {
+            pendingEmailRepository.recordFailedAttempt(email.getId(), email.getAttempts());
+        } catch (DataAccessException e) {
+            log.warn("Failed to record attempt of spilled email {}: {}", email.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Освобождает письма, которые не пытались отправить.
+     *
+     * <p>Если освободить не удалось, письма станут доступны после истечения аренды.
+     *
+     * @param emails письма
+     */
+    public void release(List<PendingEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        try {
+            pendingEmailRepository.release(emails.stream().map(PendingEmail::getId).toList());
+        } catch (DataAccessException e) {
+            log.warn("Failed to release {} spilled emails: {}", emails.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
+import com.bank.userservice.exception.IdempotencyConflictException;
+import com.bank.userservice.model.IdempotencyRecord;
+import com.bank.userservice.repository.IdempotencyRecordRepository;
+import com.bank.userservice.scheduling.SchedulerLock;
+import com.bank.userservice.security.ChallengeSigner;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static com.bank.userservice.model.log.enums.LogLevel.INFO;
+import static com.bank.userservice.model.log.enums.LogLevel.WARN;
+
+/**
+ * Повтор запросов регистрации и входа по rqid без повторного выполнения.
+ *
+ * <p>Мобильные клиенты повторяют запрос по таймауту с тем же rqid. Первый запрос
+ * захватывает запись в {@code idempotency_records} и выполняется, его успешный ответ
+ * сохраняется на {@code app.idempotency.ttl}. Повтор в течение этого срока получает
+ * сохраненный ответ: капча, хеширование пароля и письма не повторяются.
+ * <ul>
+ *   <li>Повтор, пришедший на тот же экземпляр во время выполнения, ожидает результат
+ *       первого запроса, в том числе его ошибку</li>
+ *   <li>Повтор на другом экземпляре опрашивает запись, пока ответ не будет сохранен,
+ *       но не дольше {@code app.idempotency.wait-timeout}</li>
+ *   <li>Ответ с ошибкой не сохраняется: запись освобождается, и повтор выполняется заново</li>
+ *   <li>Повтор rqid с другими данными запроса отклоняется: данные сравниваются по
+ *       HMAC-подписи на ключе {@code app.idempotency.secret}, поэтому пароль в открытом
+ *       виде не хранится</li>
+ *   <li>Каждый захват записи получает свой токен: выполнение, чей срок истек, не сохраняет
+ *       ответ в запись и не освобождает запись, которую уже захватил повтор</li>
+ * </ul>
+ * Запросы без rqid выполняются как обычно.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    /** Конечная точка регистрации */
+    public static final String REGISTER = "register";
+    /** Конечная точка входа */
+    public static final String LOGIN = "login";
+
+    /** Максимальная длина ключа записи, более длинные rqid выполняются без сохранения ответа */
+    static final int MAX_KEY_LENGTH = 255;
+    /** Интервал опроса записи, которую выполняет другой экземпляр */
+    private static final long POLL_INTERVAL_MS = 100;
+    /** Назначение ключа, выводимого из ключа CAPTCHA, если app.idempotency.secret не задан */
+    private static final String KEY_DERIVATION_LABEL = "idempotency-fingerprint-key";
+
+    private final IdempotencyRecordRepository repository;
+    private final ChallengeSigner signer;
+    private final ObjectMapper objectMapper;
+    private final ApplicationLogService applicationLogService;
+    private final Executor authIoExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final JavaType responseType;
+    private final String loggerName = this.getClass().getName();
+
+    /** Запросы, выполняемые этим экземпляром, по ключу записи */
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param repository репозиторий записей
+     * @param captchaSigner подпись CAPTCHA, из ключа которой выводится ключ подписи данных
+     *                      запроса, если {@code secret} не задан
+     * @param secret ключ подписи данных запроса, общий для всех экземпляров
+     * @param objectMapper сериализация сохраняемых ответов
+     * @param applicationLogService сервис логирования
+     * @param authIoExecutor пул блокирующих операций
+     * @param meterRegistry реестр метрик
+     * @param ttl срок хранения ответа
+     * @param lease срок выполнения, после которого запись остановленного экземпляра освобождается
+     * @param waitTimeout максимальное ожидание запроса, выполняемого другим экземпляром
+     */
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ChallengeSigner captchaSigner,
+                              @Value("${app.idempotency.secret:}") String secret,
+                              ObjectMapper objectMapper,
+                              ApplicationLogService applicationLogService,
+                              @Qualifier("authIoExecutor") Executor authIoExecutor,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.idempotency.ttl:10m}") Duration ttl,
+                              @Value("${app.idempotency.lease:60s}") Duration lease,
+                              @Value("${app.idempotency.wait-timeout:25s}") Duration waitTimeout) {
+        this.repository = repository;
+        // Ключ CAPTCHA не используется напрямую: подписи паролей в таблице не должны
+        // вычисляться ключом, которым подписываются выдаваемые клиентам токены
+        this.signer = new ChallengeSigner(secret == null || secret.isBlank()
+                ? captchaSigner.sign(KEY_DERIVATION_LABEL) : secret);
+        this.objectMapper = objectMapper;
+        this.applicationLogService = applicationLogService;
+        this.authIoExecutor = authIoExecutor;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.responseType = objectMapper.getTypeFactory()
+                .constructParametricType(AuthResponseDto.class, AuthResultDto.class);
+    }
+
+    /**
+     * Выполняет запрос один раз для rqid или возвращает сохраненный ответ.
+     *
+     * @param endpoint конечная точка ({@link #REGISTER}, {@link #LOGIN})
+     * @param rqid идентификатор запроса
+     * @param request данные запроса, по которым повтор отличается от нового запроса
+     * @param action выполнение запроса
+     * @return CompletableFuture с ответом первого выполнения. Завершается с ошибкой
+     *         IdempotencyConflictException, если rqid использован с другими данными
+     *         или первый запрос не завершился за время ожидания
+     */
+    public CompletableFuture<AuthResponseDto<AuthResultDto>> execute(
+            String endpoint,
+            String rqid,
+            List<String> request,
+            Supplier<CompletableFuture<AuthResponseDto<AuthResultDto>>> action) {
+        if (rqid == null || rqid.isBlank() || endpoint.length() + 1 + rqid.length() > MAX_KEY_LENGTH) {
+            return action.get();
+        }
+        String key = endpoint + ":" + rqid;
+        String fingerprint = signer.sign(key + "\n" + String.join("\n", request));
+
+        CompletableFuture<AuthResponseDto<AuthResultDto>> result = new CompletableFuture<>();
+        InFlight running = inFlight.putIfAbsent(key, new InFlight(fingerprint, result));
+        if (running != null) {
+            if (!running.fingerprint().equals(fingerprint)) {
+                return CompletableFuture.failedFuture(reused(endpoint, rqid));
+            }
+            count(endpoint, "joined");
+            applicationLogService.log(INFO,
+                    "Duplicate " + endpoint + " request is waiting for the first execution",
+                    rqid,
+                    loggerName);
+            return running.result().thenApply(response -> response);
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        CompletableFuture.supplyAsync(() -> claim(key, fingerprint, claimToken, endpoint, rqid), authIoExecutor)
+                .thenCompose(stored -> stored.isPresent()
+                        ? CompletableFuture.completedFuture(stored.get())
+                        : executeAndRecord(key, claimToken, endpoint, action))
+                .whenComplete((response, error) -> {
+                    inFlight.remove(key);
+                    if (error != null) {
+                        result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    } else {
+                        result.complete(response);
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Удаляет записи с истекшим сроком.
+     *
+     * <p>Истекшая запись не мешает повторному использованию rqid, поэтому очистка
+     * только ограничивает размер таблицы.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:600000}")
+    @SchedulerLock(name = "purgeIdempotencyRecords")
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired();
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency records", deleted);
+        }
+    }
+
+    /**
+     * Захватывает выполнение запроса или ожидает ответ, сохраненный другим выполнением.
+     *
+     * @return сохраненный ответ или пустой Optional, если запрос нужно выполнить
+     */
+    private Optional<AuthResponseDto<AuthResultDto>> claim(String key, String fingerprint, String claimToken,
+                                                           String endpoint, String rqid) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (repository.tryClaim(key, fingerprint, claimToken, lease.toMillis()) == 0) {
+            Optional<IdempotencyRecord> current = repository.findCurrent(key);
+            if (current.isPresent()) {
+                IdempotencyRecord record = current.get();
+                if (!record.getFingerprint().equals(fingerprint)) {
+                    throw reused(endpoint, rqid);
+                }
+                if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                    count(endpoint, "replayed");
+                    applicationLogService.log(INFO,
+                            "Replaying stored response of " + endpoint + " request",
+                            rqid,
+                            loggerName);
+                    return Optional.of(read(record.getResponse()));
+                }
+            }
+            if (System.nanoTime() - deadline > 0) {
+                count(endpoint, "rejected");
+                throw new IdempotencyConflictException("Request with rqid " + rqid + " is still in progress, try again later");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for request " + rqid, e);
+            }
+        }
+        count(endpoint, "executed");
+        return Optional.empty();
+    }
+
+    /**
+     * Выполняет запрос и сохраняет успешный ответ. При ошибке запись освобождается.
+     */
+    private CompletableFuture<AuthResponseDto<AuthResultDto>> executeAndRecord(
+            String key,
+            String claimToken,
+            String endpoint,
+            Supplier<CompletableFuture<AuthResponseDto<AuthResultDto>>> action) {
+        CompletableFuture<AuthResponseDto<AuthResultDto>> execution;
+        try {
+            execution = action.get();
+        } catch (RuntimeException e) {
+            release(key, claimToken);
+            throw e;
+        }
+        return execution.whenCompleteAsync((response, error) -> {
+            if (error == null) {
+                store(key, claimToken, endpoint, response);
+            } else {
+                release(key, claimToken);
+            }
+        }, authIoExecutor);
+    }
+
+    /**
+     * Сохраняет ответ. Ошибка сохранения не влияет на ответ клиенту: повтор выполнится
+     * заново после истечения срока выполнения.
+     */
+    private void store(String key, String claimToken, String endpoint, AuthResponseDto<AuthResultDto> response) {
+        try {
+            repository.complete(key, claimToken, objectMapper.writeValueAsString(response), ttl.toMillis());
+        } catch (JsonProcessingException | DataAccessException e) {
+            applicationLogService.log(WARN,
+                    "Failed to store " + endpoint + " response for replay: " + e.getMessage(),
+                    response.getRqid(),
+                    loggerName);
+        }
+    }
+
+    private void release(String key, String claimToken) {
+        try {
+            repository.release(key, claimToken);
+        } catch (DataAccessException e) {
+            log.warn("Failed to release idempotency record {}: {}", key, e.getMessage());
+        }
+    }
+
+    private AuthResponseDto<AuthResultDto> read(String response) {
+        try {
+            return objectMapper.readValue(response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response is not readable", e);
+        }
+    }
+
+    private IdempotencyConflictException reused(String endpoint, String rqid) {
+        count(endpoint, "rejected");
+        return new IdempotencyConflictException("Request id " + rqid + " was already used for a different request");
+    }
+
+    private void count(String endpoint, String outcome) {
+        Counter.builder("app.idempotency.requests")
+                .description("Requests with rqid by outcome: executed, replayed, joined or rejected")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Запрос, выполняемый этим экземпляром.
+     *
+     * @param fingerprint подпись данных запроса
+     * @param result результат выполнения
+     */
+    private record InFlight(String fingerprint, CompletableFuture<AuthResponseDto<AuthResultDto>> result) {
+    }
+}
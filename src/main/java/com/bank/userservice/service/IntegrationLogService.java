@@ -1,12 +1,16 @@
 package com.bank.userservice.service;
 
 import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.ErrorDto;
 import com.bank.userservice.dto.auth.RequestContext;
+import com.bank.userservice.id.IdGenerator;
 import com.bank.userservice.model.log.IntegrationLog;
 import com.bank.userservice.repository.log.ApplicationLogRepository;
 import com.bank.userservice.repository.log.IntegrationLogRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -16,9 +20,8 @@ import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -37,12 +40,22 @@ import java.util.UUID;
 @Slf4j
 @Data
 public class IntegrationLogService {
+    /** Префикс идентификатора ответа */
+    public static final String RSID_PREFIX = "RES_";
+
     // Репозиторий интеграционных логов
     private final IntegrationLogRepository integrationLogRepository;
     // Репозиторий логов приложения
     private final ApplicationLogRepository applicationLogRepository;
     private final ObjectMapper objectMapper; // Внедряем настроенный ObjectMapper
     private final RequestContext requestContext;
+    private final IdGenerator idGenerator;
+    /**
+     * Сериализаторы ответов для {@code responseData} по типу данных ответа.
+     * Создаются один раз на тип и всегда пишут компактный JSON, даже если
+     * для отладки включено форматирование ответов ({@code app.json.pretty-print}).
+     */
+    private final Map<Class<?>, ObjectWriter> logWriters = new ConcurrentHashMap<>();
 
     /**
      * Логирует успешное взаимодействие между системами.
@@ -55,22 +68,24 @@ public class IntegrationLogService {
      *   <li>Данные ответа в JSON формате</li>
      * </ul>
      *
-     * @param response данные ответа в виде Map
+     * <p>В лог записываются те же rsid и время, что и в ответ.
+     *
+     * @param response данные ответа
+     * @param <T> тип данных ответа
      * @return AuthResponseDto сформированный ответ
      * @throws JsonProcessingException при ошибках сериализации данных
      */
-    public AuthResponseDto  logInteraction(Map<String, Object> response) throws JsonProcessingException {
-        String rqid = requestContext.getRqid();
-        AuthResponseDto authResponseDto = mapToAuthResponseDto(response);
+    public <T> AuthResponseDto<T> logInteraction(T response) throws JsonProcessingException {
+        AuthResponseDto<T> authResponseDto = mapToAuthResponseDto(response);
 
         IntegrationLog logEntry = new IntegrationLog();
-        logEntry.setRqid(rqid);
-        logEntry.setRsid(generateRsid());
-        logEntry.setRequestTime(LocalDateTime.now());
-        logEntry.setResponseTime(LocalDateTime.now());
-        logEntry.setStatusCode(HttpStatus.OK.value());
+        logEntry.setRqid(authResponseDto.getRqid());
+        logEntry.setRsid(authResponseDto.getRsid());
+        logEntry.setRequestTime(authResponseDto.getResponseTime());
+        logEntry.setResponseTime(authResponseDto.getResponseTime());
+        logEntry.setStatusCode(authResponseDto.getStatusCode());
         //logEntry.setRequestData(objectMapper.writeValueAsString(request));
-        logEntry.setResponseData(objectMapper.writeValueAsString(authResponseDto));
+        logEntry.setResponseData(logWriter(response.getClass()).writeValueAsString(authResponseDto));
 
         integrationLogRepository.save(logEntry);
         return authResponseDto;
@@ -80,12 +95,13 @@ public class IntegrationLogService {
     /**
      * Преобразует данные ответа в DTO формата AuthResponseDto.
      *
-     * @param response данные ответа в виде Map
+     * @param response данные ответа
+     * @param <T> тип данных ответа
      * @return AuthResponseDto сформированный DTO ответа
      */
-    public AuthResponseDto mapToAuthResponseDto(Map<String, Object> response) {
+    public <T> AuthResponseDto<T> mapToAuthResponseDto(T response) {
         String rqid = requestContext.getRqid();
-        AuthResponseDto responseDto = new AuthResponseDto();
+        AuthResponseDto<T> responseDto = new AuthResponseDto<>();
         responseDto.setRqid(rqid);
         responseDto.setRsid(generateRsid());
         responseDto.setStatusCode(HttpStatus.OK.value());
@@ -102,42 +118,67 @@ public class IntegrationLogService {
      * @return AuthResponseDto с описанием ошибки
      * @throws JsonProcessingException при ошибках сериализации данных
      */
-    public AuthResponseDto logErrorToIntegrationLogs(HttpStatusCode status, String errorMessage) throws JsonProcessingException {
-        String rqid = requestContext.getRqid();
-        AuthResponseDto errorResponseDto = new AuthResponseDto();
-
-        errorResponseDto.setRqid(rqid);
-        errorResponseDto.setRsid(generateRsid());
-        errorResponseDto.setStatusCode(status.value());
-        errorResponseDto.setResponseTime(LocalDateTime.now());
-
-        Map<String, Object> responseData = new HashMap<>();
-        responseData.put("error", errorMessage);
-        errorResponseDto.setResponse(responseData);
+    public AuthResponseDto<ErrorDto> logErrorToIntegrationLogs(HttpStatusCode status, String errorMessage) throws JsonProcessingException {
+        AuthResponseDto<ErrorDto> errorResponseDto = mapToErrorResponseDto(status, errorMessage);
 
         IntegrationLog logEntry = new IntegrationLog();
-        logEntry.setRqid(rqid);
+        logEntry.setRqid(errorResponseDto.getRqid());
         logEntry.setRsid(errorResponseDto.getRsid());
-        logEntry.setRequestTime(LocalDateTime.now());
+        logEntry.setRequestTime(errorResponseDto.getResponseTime());
         logEntry.setResponseTime(errorResponseDto.getResponseTime());
         logEntry.setStatusCode(errorResponseDto.getStatusCode());
         //logEntry.setRequestData(objectMapper.writeValueAsString(request));
-        logEntry.setResponseData(objectMapper.writeValueAsString(errorResponseDto));
+        logEntry.setResponseData(logWriter(ErrorDto.class).writeValueAsString(errorResponseDto));
 
         integrationLogRepository.save(logEntry);
 
         return errorResponseDto;
     }
 
+    /**
+     * Формирует ответ с ошибкой без записи в интеграционные логи.
+     *
+     * <p>Используется при отклонении запросов под перегрузкой, когда запись в БД
+     * только увеличила бы нагрузку.
+     *
+     * @param status HTTP статус ошибки
+     * @param errorMessage сообщение об ошибке
+     * @return AuthResponseDto с описанием ошибки
+     */
+    public AuthResponseDto<ErrorDto> mapToErrorResponseDto(HttpStatusCode status, String errorMessage) {
+        AuthResponseDto<ErrorDto> errorResponseDto = new AuthResponseDto<>();
+        errorResponseDto.setRqid(requestContext.getRqid());
+        errorResponseDto.setRsid(generateRsid());
+        errorResponseDto.setStatusCode(status.value());
+        errorResponseDto.setResponseTime(LocalDateTime.now());
+        errorResponseDto.setResponse(new ErrorDto(errorMessage));
+        return errorResponseDto;
+    }
+
+    /**
+     * Возвращает сериализатор ответа с данными заданного типа.
+     *
+     * <p>Тип указывается явно, поэтому Jackson не определяет сериализатор
+     * по фактическому классу значения при каждой записи.
+     *
+     * @param responseType тип данных ответа
+     * @return компактный сериализатор {@code AuthResponseDto<responseType>}
+     */
+    private ObjectWriter logWriter(Class<?> responseType) {
+        return logWriters.computeIfAbsent(responseType, type -> objectMapper
+                .writerFor(objectMapper.getTypeFactory().constructParametricType(AuthResponseDto.class, type))
+                .without(SerializationFeature.INDENT_OUTPUT));
+    }
+
     /**
      * Генерирует уникальный идентификатор ответа (RSID).
      *
-     * <p>Формат: RES_[временная метка]_[UUID]
+     * <p>Формат: RES_[идентификатор {@link IdGenerator}]
      *
      * @return уникальный идентификатор ответа
      */
-    public static String generateRsid() {
-        return "RES_" + LocalDateTime.now() + "_" + UUID.randomUUID().toString().substring(0, 8);
+    private String generateRsid() {
+        return idGenerator.nextId(RSID_PREFIX);
     }
 }
 
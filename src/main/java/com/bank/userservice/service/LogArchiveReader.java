@@ -0,0 +1,168 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.LogArchiveManifestDto;
+import com.bank.userservice.dto.LogArchiveSegmentDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Сервис поиска по архиву логов без обратного импорта в БД.
+ *
+ * <p>По манифесту отбираются только сегменты, чей диапазон времени пересекается
+ * с запрошенным. Сегменты читаются потоково, строка разбирается из JSON только
+ * если в ней встречается искомый rqid.
+ */
+@Service
+public class LogArchiveReader {
+    /** Имя файла манифеста в каталоге архива */
+    static final String MANIFEST_FILE = "manifest.json";
+
+    /** Архивируемые таблицы и их столбцы времени записи */
+    static final Map<String, String> ARCHIVED_TABLES = Map.of(
+            "application_logs", "timestamp",
+            "integration_logs", "request_time");
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+
+    /** Каталог архива */
+    @Getter
+    private final Path directory;
+
+    public LogArchiveReader(ObjectMapper objectMapper,
+                            @Value("${app.log-archive.directory:./log-archive}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Ищет архивные записи по rqid и диапазону времени.
+     *
+     * @param table таблица ({@code application_logs} или {@code integration_logs}), null - все таблицы
+     * @param rqid идентификатор запроса, null - любой
+     * @param from начало диапазона включительно, null - без ограничения
+     * @param to конец диапазона включительно, null - без ограничения
+     * @param limit максимальное количество возвращаемых записей
+     * @return найденные записи в виде "столбец - значение"
+     * @throws IOException при ошибке чтения архива
+     * @throws IllegalArgumentException если таблица не архивируется
+     */
+    public List<Map<String, Object>> search(String table, String rqid,
+                                            LocalDateTime from, LocalDateTime to,
+                                            int limit) throws IOException {
+        if (table != null && !ARCHIVED_TABLES.containsKey(table)) {
+            throw new IllegalArgumentException("Table is not archived: " + table);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (LogArchiveSegmentDto segment : readManifest().getSegments()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if ((table == null || table.equals(segment.getTable())) && overlaps(segment, from, to)) {
+                searchSegment(segment, rqid, from, to, limit, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Читает манифест архива.
+     *
+     * @return манифест или пустой манифест, если архив еще не создан
+     * @throws IOException при ошибке чтения
+     */
+    public LogArchiveManifestDto readManifest() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return new LogArchiveManifestDto();
+        }
+        return objectMapper.readValue(manifest.toFile(), LogArchiveManifestDto.class);
+    }
+
+    /**
+     * Атомарно заменяет манифест архива, чтобы читатели не увидели его частично записанным.
+     *
+     * @param manifest новый манифест
+     * @throws IOException при ошибке записи
+     */
+    void writeManifest(LogArchiveManifestDto manifest) throws IOException {
+        Files.createDirectories(directory);
+        Path tmp = directory.resolve(MANIFEST_FILE + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), manifest);
+        Files.move(tmp, directory.resolve(MANIFEST_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Передает идентификаторы строк сегмента в порядке записи.
+     *
+     * @param segment сегмент
+     * @param consumer получатель идентификаторов
+     * @throws IOException при ошибке чтения сегмента
+     */
+    void forEachId(LogArchiveSegmentDto segment, LongConsumer consumer) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(directory.resolve(segment.getFile()))),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumer.accept(objectMapper.readTree(line).get("id").asLong());
+            }
+        }
+    }
+
+    private void searchSegment(LogArchiveSegmentDto segment, String rqid,
+                               LocalDateTime from, LocalDateTime to,
+                               int limit, List<Map<String, Object>> result) throws IOException {
+        String timeColumn = ARCHIVED_TABLES.get(segment.getTable());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(directory.resolve(segment.getFile()))),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null && result.size() < limit) {
+                // Дешевая проверка подстроки отсекает большинство строк без разбора JSON
+                if (rqid != null && !line.contains(rqid)) {
+                    continue;
+                }
+                Map<String, Object> row = objectMapper.readValue(line, ROW_TYPE);
+                if (rqid != null && !rqid.equals(row.get("rqid"))) {
+                    continue;
+                }
+                Object time = row.get(timeColumn);
+                if (time != null && inRange(LocalDateTime.parse(time.toString()), from, to)) {
+                    row.put("table", segment.getTable());
+                    result.add(row);
+                }
+            }
+        }
+    }
+
+    private static boolean overlaps(LogArchiveSegmentDto segment, LocalDateTime from, LocalDateTime to) {
+        return (from == null || !segment.getTo().isBefore(from))
+                && (to == null || !segment.getFrom().isAfter(to));
+    }
+
+    private static boolean inRange(LocalDateTime time, LocalDateTime from, LocalDateTime to) {
+        return (from == null || !time.isBefore(from)) && (to == null || !time.isAfter(to));
+    }
+}
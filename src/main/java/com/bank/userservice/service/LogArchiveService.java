@@ -0,0 +1,376 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.LogArchiveManifestDto;
+import com.bank.userservice.dto.LogArchiveSegmentDto;
+import com.bank.userservice.scheduling.SchedulerLock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сервис архивации старых логов приложения и интеграционных логов.
+ *
+ * <p>Логика работы для каждой таблицы:
+ * <ol>
+ *   <li>Строки старше срока хранения читаются курсором на стороне сервера
+ *   (порциями по {@code fetch-size} строк) и пишутся в gzip сегменты NDJSON</li>
+ *   <li>Готовые сегменты добавляются в манифест архива</li>
+ *   <li>Архивированные строки удаляются из БД пачками в коротких транзакциях</li>
+ * </ol>
+ *
+ * <p>Удаляются только строки, записанные в сегменты: по идентификаторам из файла сегмента
+ * после записи сегментов и манифеста на диск. Граница по идентификатору не используется:
+ * время записи присваивается до вставки строки, поэтому строка с меньшим идентификатором
+ * может оказаться новее границы и будет архивирована следующими запусками. Если запуск
+ * прервался до удаления, следующий запуск сначала удаляет строки сегментов манифеста,
+ * не отмеченных как удаленные, и только потом читает таблицу, поэтому строки не
+ * выгружаются повторно. Сегменты, записанные неудачным запуском, но не попавшие в
+ * манифест, удаляются: их строки остаются в БД и будут архивированы заново.
+ *
+ * <p>Архивацию выполняет экземпляр, захвативший блокировку задачи, поэтому каталог
+ * {@code app.log-archive.directory} должен быть общим для всех экземпляров и переживать
+ * их перезапуск (постоянный том, в docker-compose - {@code log_archive}). Иначе манифест,
+ * а с ним и список сегментов, строки которых еще не удалены, у каждого экземпляра свой.
+ *
+ * @see LogArchiveReader
+ */
+@Service
+@Slf4j
+public class LogArchiveService {
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final JdbcTemplate jdbcTemplate;
+    /** Транзакция только для чтения, необходимая PostgreSQL для курсора с fetch size */
+    private final TransactionTemplate readTransaction;
+    /** Транзакция для удаления одной пачки */
+    private final TransactionTemplate deleteTransaction;
+    private final LogArchiveReader logArchiveReader;
+    /** Сериализатор строк в одну строку JSON (общий ObjectMapper может форматировать вывод для отладки) */
+    private final ObjectWriter rowWriter;
+    private final MeterRegistry meterRegistry;
+
+    /** Включена ли архивация */
+    @Value("${app.log-archive.enabled:true}")
+    private boolean enabled = true;
+
+    /** Срок хранения логов в БД в днях */
+    @Value("${app.log-archive.retention-days:90}")
+    private int retentionDays = 90;
+
+    /** Количество строк, получаемых из курсора за одно обращение к БД */
+    @Value("${app.log-archive.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /** Максимальное количество строк в одном сегменте */
+    @Value("${app.log-archive.segment-max-rows:100000}")
+    private long segmentMaxRows = 100_000;
+
+    /** Максимальное количество идентификаторов, удаляемых одним запросом */
+    @Value("${app.log-archive.delete-batch-size:5000}")
+    private int deleteBatchSize = 5000;
+
+    public LogArchiveService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             LogArchiveReader logArchiveReader,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.deleteTransaction = new TransactionTemplate(transactionManager);
+        this.logArchiveReader = logArchiveReader;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Архивирует логи старше срока хранения.
+     *
+     * <p>Выполняется ежедневно по расписанию {@code app.log-archive.cron}.
+     * Ошибка архивации одной таблицы не мешает архивации другой; строки
+     * неудачно архивированной таблицы остаются в БД до следующего запуска.
+     */
+    @Scheduled(cron = "${app.log-archive.cron:0 30 3 * * ?}")
+    @SchedulerLock(name = "archiveLogs", leaseSeconds = 1800, lockAtLeastForSeconds = 60)
+    public void archiveLogs() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        for (Map.Entry<String, String> table : LogArchiveReader.ARCHIVED_TABLES.entrySet()) {
+            try {
+                archiveTable(table.getKey(), table.getValue(), cutoff);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to archive {}, rows are kept in the database", table.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Архивирует и удаляет строки одной таблицы.
+     *
+     * @param table имя таблицы
+     * @param timeColumn столбец времени записи
+     * @param cutoff строки с временем раньше этой границы архивируются
+     * @return количество удаленных из БД строк
+     * @throws IOException при ошибке записи архива
+     */
+    public long archiveTable(String table, String timeColumn, LocalDateTime cutoff) throws IOException {
+        LogArchiveManifestDto manifest = logArchiveReader.readManifest();
+        deleteOrphanedSegments(table, manifest);
+        // Строки, выгруженные прерванным запуском, удаляются до чтения, иначе они попадут в архив дважды
+        long deleted = purgeSegments(table, manifest);
+
+        List<LogArchiveSegmentDto> segments;
+        try (SegmentWriter writer = new SegmentWriter(table, timeColumn)) {
+            String sql = "SELECT * FROM " + table + " WHERE \"" + timeColumn + "\" < ? ORDER BY id";
+            readTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql,
+                    ps -> {
+                        ps.setFetchSize(fetchSize);
+                        ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+                    },
+                    writer::write));
+            segments = writer.finish();
+            if (!segments.isEmpty()) {
+                manifest.getSegments().addAll(segments);
+                logArchiveReader.writeManifest(manifest);
+            }
+            writer.commit();
+        }
+
+        deleted += purgeSegments(table, manifest);
+
+        long archived = segments.stream().mapToLong(LogArchiveSegmentDto::getRows).sum();
+        Counter.builder("app.log-archive.rows").tag("table", table)
+                .description("Number of log rows written to the archive")
+                .register(meterRegistry).increment(archived);
+        log.info("Archived {} rows of {} into {} segments, deleted {} rows", archived, table, segments.size(), deleted);
+        return deleted;
+    }
+
+    /**
+     * Удаляет сегменты таблицы, которых нет в манифесте.
+     *
+     * <p>Такие сегменты остаются после запуска, остановленного между записью сегментов
+     * и манифеста (например, при аварийном завершении процесса). Их строки не удалены
+     * из БД и будут архивированы заново.
+     */
+    private void deleteOrphanedSegments(String table, LogArchiveManifestDto manifest) throws IOException {
+        Path directory = logArchiveReader.getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Set<String> listed = manifest.getSegments().stream()
+                .map(LogArchiveSegmentDto::getFile)
+                .collect(Collectors.toSet());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, table + "-*.ndjson.gz*")) {
+            for (Path file : files) {
+                if (!listed.contains(file.getFileName().toString())) {
+                    log.warn("Deleting archive segment {} that is not listed in the manifest", file.getFileName());
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет из БД строки сегментов таблицы, еще не отмеченных как удаленные.
+     *
+     * <p>После каждого сегмента манифест сохраняется с отметкой. Повторное удаление
+     * сегмента после сбоя безопасно: удаляются только идентификаторы из его файла.
+     *
+     * @return количество удаленных строк
+     */
+    private long purgeSegments(String table, LogArchiveManifestDto manifest) throws IOException {
+        long total = 0;
+        for (LogArchiveSegmentDto segment : manifest.getSegments()) {
+            if (table.equals(segment.getTable()) && !segment.isPurged()) {
+                total += deleteArchived(table, segment);
+                segment.setPurged(true);
+                logArchiveReader.writeManifest(manifest);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Удаляет строки сегмента по идентификаторам из его файла пачками, каждая в отдельной транзакции.
+     */
+    private long deleteArchived(String table, LogArchiveSegmentDto segment) throws IOException {
+        String sql = "DELETE FROM " + table + " WHERE id = ANY(?)";
+        List<Long> batch = new ArrayList<>(deleteBatchSize);
+        long[] total = {0};
+        logArchiveReader.forEachId(segment, id -> {
+            batch.add(id);
+            if (batch.size() >= deleteBatchSize) {
+                total[0] += deleteBatch(sql, batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            total[0] += deleteBatch(sql, batch);
+        }
+        return total[0];
+    }
+
+    private int deleteBatch(String sql, List<Long> ids) {
+        Integer result = deleteTransaction.execute(status -> jdbcTemplate.update(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray()))));
+        return result != null ? result : 0;
+    }
+
+    /**
+     * Записывает строки таблицы в последовательность gzip сегментов.
+     *
+     * <p>Сегмент пишется во временный файл и переименовывается после записи
+     * на диск, поэтому в каталоге архива не бывает частично записанных сегментов.
+     * Если запуск завершился ошибкой до записи манифеста ({@link #commit()}),
+     * записанные сегменты удаляются при закрытии.
+     */
+    private class SegmentWriter implements Closeable {
+        private final String table;
+        private final String timeColumn;
+        private final String runId = RUN_ID_FORMAT.format(LocalDateTime.now());
+        private final List<LogArchiveSegmentDto> completed = new ArrayList<>();
+
+        private FileOutputStream fileStream;
+        private GZIPOutputStream gzipStream;
+        private BufferedWriter out;
+        private Path tmpFile;
+        private LogArchiveSegmentDto current;
+        private boolean committed;
+        private int sequence;
+
+        SegmentWriter(String table, String timeColumn) {
+            this.table = table;
+            this.timeColumn = timeColumn;
+        }
+
+        void write(ResultSet rs) throws SQLException {
+            Map<String, Object> row = toRow(rs);
+            long id = ((Number) row.get("id")).longValue();
+            LocalDateTime time = (LocalDateTime) row.get(timeColumn);
+            try {
+                if (current == null) {
+                    open();
+                }
+                out.write(rowWriter.writeValueAsString(row));
+                out.newLine();
+                current.setRows(current.getRows() + 1);
+                current.setMinId(Math.min(current.getMinId(), id));
+                current.setMaxId(Math.max(current.getMaxId(), id));
+                if (time != null) {
+                    current.setFrom(current.getFrom() == null || time.isBefore(current.getFrom()) ? time : current.getFrom());
+                    current.setTo(current.getTo() == null || time.isAfter(current.getTo()) ? time : current.getTo());
+                }
+                if (current.getRows() >= segmentMaxRows) {
+                    complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        List<LogArchiveSegmentDto> finish() throws IOException {
+            if (current != null) {
+                complete();
+            }
+            return completed;
+        }
+
+        /**
+         * Отмечает записанные сегменты как включенные в манифест.
+         */
+        void commit() {
+            committed = true;
+        }
+
+        private void open() throws IOException {
+            Path directory = logArchiveReader.getDirectory();
+            Files.createDirectories(directory);
+            // Номер продолжается после существующих сегментов: запуски в одну секунду не перезаписывают друг друга
+            String file;
+            do {
+                file = String.format("%s-%s-%04d.ndjson.gz", table, runId, ++sequence);
+            } while (Files.exists(directory.resolve(file)));
+            tmpFile = directory.resolve(file + ".tmp");
+            fileStream = new FileOutputStream(tmpFile.toFile());
+            gzipStream = new GZIPOutputStream(fileStream);
+            out = new BufferedWriter(new OutputStreamWriter(gzipStream, StandardCharsets.UTF_8));
+            current = new LogArchiveSegmentDto(table, file, 0, Long.MAX_VALUE, Long.MIN_VALUE, null, null,
+                    LocalDateTime.now(), false);
+        }
+
+        private void complete() throws IOException {
+            out.flush();
+            gzipStream.finish();
+            fileStream.getFD().sync();
+            out.close();
+            Files.move(tmpFile, logArchiveReader.getDirectory().resolve(current.getFile()), StandardCopyOption.ATOMIC_MOVE);
+            completed.add(current);
+            current = null;
+            out = null;
+        }
+
+        private Map<String, Object> toRow(ResultSet rs) throws SQLException {
+            ResultSetMetaData metaData = rs.getMetaData();
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                Object value = rs.getObject(i);
+                row.put(metaData.getColumnLabel(i), value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value);
+            }
+            return row;
+        }
+
+        /**
+         * Удаляет незавершенный сегмент, если запись прервалась ошибкой, и завершенные
+         * сегменты, не попавшие в манифест.
+         */
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+                Files.deleteIfExists(tmpFile);
+            }
+            if (!committed) {
+                for (LogArchiveSegmentDto segment : completed) {
+                    Files.deleteIfExists(logArchiveReader.getDirectory().resolve(segment.getFile()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.PowChallengeDto;
+import com.bank.userservice.exception.InvalidCaptchaException;
+import com.bank.userservice.repository.UsedPowChallengeRepository;
+import com.bank.userservice.scheduling.SchedulerLock;
+import com.bank.userservice.security.ChallengeSigner;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Сервис hashcash-подобной проверки proof-of-work.
+ *
+ * <p>Сервер выдает подписанную задачу со сложностью {@code difficulty}, браузер
+ * подбирает решение, при котором SHA-256(задача + ":" + решение) начинается
+ * с {@code difficulty} нулевых бит. Проверка решения на сервере - один SHA-256
+ * и одна проверка HMAC. Каждая задача принимается один раз: nonce принятой задачи
+ * записывается в {@code used_pow_challenges}, общую для всех экземпляров, и повтор
+ * той же пары задача/решение отклоняется.
+ *
+ * <p>Сложность растет вместе с частотой попыток регистрации за последнюю минуту:
+ * каждое удвоение частоты сверх порога добавляет один бит.
+ */
+@Service
+@RequiredArgsConstructor
+@Data
+@Slf4j
+public class ProofOfWorkService {
+    /** Префикс подписываемых данных, отделяющий задачи PoW от других токенов */
+    private static final String SIGNATURE_DOMAIN = "pow.";
+    /** Максимальная длина решения */
+    private static final int MAX_SOLUTION_LENGTH = 32;
+    /** Длина окна подсчета частоты регистраций в секундах */
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    private final ChallengeSigner challengeSigner;
+    private final UsedPowChallengeRepository usedPowChallengeRepository;
+
+    /** Включена ли выдача задач PoW браузеру */
+    @Value("${app.captcha.pow.enabled:false}")
+    private boolean enabled;
+
+    /** Базовая сложность в битах */
+    @Value("${app.captcha.pow.base-difficulty:16}")
+    private int baseDifficulty = 16;
+
+    /** Максимальная сложность в битах */
+    @Value("${app.captcha.pow.max-difficulty:22}")
+    private int maxDifficulty = 22;
+
+    /** Частота регистраций в минуту, после которой сложность начинает расти */
+    @Value("${app.captcha.pow.rate-threshold-per-minute:30}")
+    private long rateThresholdPerMinute = 30;
+
+    /** Время жизни задачи */
+    @Value("${app.captcha.pow.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    /**
+     * Ячейки окна подсчета: в старших 32 битах секунда, к которой относится ячейка,
+     * в младших - количество попыток регистрации в эту секунду. Секунда и счетчик
+     * меняются одной операцией CAS, поэтому сброс ячейки не теряет попытки других потоков.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    /** Экземпляр MessageDigest не потокобезопасен, поэтому у каждого потока свой */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    /**
+     * Выдает новую задачу с текущей сложностью.
+     *
+     * <p>Формат задачи: <pre>"истечение.сложность.nonce.подпись"</pre>
+     *
+     * @return подписанная задача
+     */
+    public PowChallengeDto createChallenge() {
+        int difficulty = currentDifficulty();
+        Instant expiresAt = Instant.now().plusSeconds(ttlSeconds);
+        String claims = expiresAt.getEpochSecond() + "." + difficulty + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        String challenge = claims + "." + challengeSigner.sign(SIGNATURE_DOMAIN + claims);
+        return new PowChallengeDto(challenge, difficulty, expiresAt);
+    }
+
+    /**
+     * Проверяет решение задачи.
+     *
+     * @param challenge подписанная задача
+     * @param solution решение, подобранное клиентом
+     * @return true если задача подлинная, не истекла, не использовалась ранее
+     *         и решение удовлетворяет сложности
+     * @throws InvalidCaptchaException если неверный формат задачи или решения
+     */
+    public boolean verify(String challenge, String solution) {
+        String[] parts = challenge.split("\\.");
+        if (parts.length != 4 || solution.isEmpty() || solution.length() > MAX_SOLUTION_LENGTH) {
+            throw new InvalidCaptchaException("Invalid proof-of-work format");
+        }
+
+        long expiresAt;
+        int difficulty;
+        try {
+            expiresAt = Long.parseLong(parts[0]);
+            difficulty = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCaptchaException("Invalid proof-of-work format");
+        }
+
+        if (Instant.now().getEpochSecond() > expiresAt) {
+            return false;
+        }
+        String claims = challenge.substring(0, challenge.lastIndexOf('.'));
+        if (!challengeSigner.verify(SIGNATURE_DOMAIN + claims, parts[3])) {
+            return false;
+        }
+
+        byte[] hash = SHA256.get().digest((challenge + ":" + solution).getBytes(StandardCharsets.UTF_8));
+        if (leadingZeroBits(hash) < difficulty) {
+            return false;
+        }
+        // Запись хранится весь срок жизни задачи, поэтому повтор до ее истечения будет отклонен
+        return usedPowChallengeRepository.tryUse(parts[2], ttlSeconds) == 1;
+    }
+
+    /**
+     * Удаляет записи об использованных задачах, срок которых истек.
+     */
+    @Scheduled(fixedDelayString = "${app.captcha.pow.cleanup-interval-ms:600000}")
+    @SchedulerLock(name = "purgeUsedPowChallenges")
+    public void purgeUsedChallenges() {
+        int deleted = usedPowChallengeRepository.deleteExpired();
+        if (deleted > 0) {
+            log.info("Deleted {} expired proof-of-work challenges", deleted);
+        }
+    }
+
+    /**
+     * Учитывает попытку регистрации при расчете сложности.
+     */
+    public void recordRegistrationAttempt() {
+        long second = Instant.now().getEpochSecond();
+        int index = (int) (second % RATE_WINDOW_SECONDS);
+        buckets.updateAndGet(index, bucket -> bucket >>> 32 == second ? bucket + 1 : second << 32 | 1);
+    }
+
+    /**
+     * Рассчитывает текущую сложность по частоте регистраций за последнюю минуту.
+     *
+     * @return сложность в битах
+     */
+    public int currentDifficulty() {
+        long rate = registrationRatePerMinute();
+        if (rate <= rateThresholdPerMinute) {
+            return baseDifficulty;
+        }
+        int extraBits = 63 - Long.numberOfLeadingZeros(rate / Math.max(rateThresholdPerMinute, 1));
+        return Math.min(baseDifficulty + extraBits, maxDifficulty);
+    }
+
+    /**
+     * @return количество попыток регистрации за последние {@value #RATE_WINDOW_SECONDS} секунд
+     */
+    public long registrationRatePerMinute() {
+        long now = Instant.now().getEpochSecond();
+        long total = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            long bucket = buckets.get(i);
+            if (now - (bucket >>> 32) < RATE_WINDOW_SECONDS) {
+                total += bucket & 0xFFFFFFFFL;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Считает количество ведущих нулевых бит.
+     *
+     * @param hash хеш
+     * @return количество ведущих нулевых бит
+     */
+    static int leadingZeroBits(byte[] hash) {
+        int bits = 0;
+        for (byte b : hash) {
+            if (b == 0) {
+                bits += 8;
+                continue;
+            }
+            bits += Integer.numberOfLeadingZeros(b & 0xFF) - 24;
+            break;
+        }
+        return bits;
+    }
+}
@@ -1,23 +1,25 @@
 package com.bank.userservice.service;
 
 import com.bank.userservice.dto.auth.RequestContext;
-import com.bank.userservice.model.User;
 import com.bank.userservice.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.bank.userservice.scheduling.SchedulerLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
-import java.util.List;
 import static com.bank.userservice.model.log.enums.LogLevel.INFO;
+import static com.bank.userservice.model.log.enums.LogLevel.WARN;
 /**
  * Сервис для выполнения запланированных задач по обслуживанию системы.
  *
  * <p>Использует Spring Scheduling для выполнения задач по расписанию.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ScheduledTasksService {
     /** Репозиторий с сохраненными пользователями */
@@ -26,11 +28,42 @@ public class ScheduledTasksService {
     private final ApplicationLogService applicationLogService;
     /** Контекст запроса(для хранения и получения rqid при логировании) */
     private final RequestContext requestContext;
+    /** Шаблон для выполнения каждой пачки в отдельной короткой транзакции */
+    private final TransactionTemplate transactionTemplate;
+    /** Количество удаленных неподтвержденных пользователей */
+    private final Counter deletedUsersCounter;
+    /** Длительность полной очистки */
+    private final Timer cleanupTimer;
     /**
      * Имя класса-источника лога
      */
     private final String loggerName = this.getClass().getName();
 
+    /** Максимальное количество строк, удаляемых одним запросом */
+    @Value("${app.cleanup.unverified.batch-size:1000}")
+    private int batchSize = 1000;
+
+    /** Пауза между пачками, чтобы не нагружать БД непрерывным удалением */
+    @Value("${app.cleanup.unverified.pause-ms:100}")
+    private long pauseMillis = 100;
+
+    public ScheduledTasksService(UserRepository userRepository,
+                                 ApplicationLogService applicationLogService,
+                                 RequestContext requestContext,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.applicationLogService = applicationLogService;
+        this.requestContext = requestContext;
+        this.transactionTemplate = transactionTemplate;
+        this.deletedUsersCounter = Counter.builder("app.cleanup.unverified.deleted")
+                .description("Number of expired unverified accounts deleted")
+                .register(meterRegistry);
+        this.cleanupTimer = Timer.builder("app.cleanup.unverified.duration")
+                .description("Duration of the expired unverified accounts cleanup")
+                .register(meterRegistry);
+    }
+
     /**
      * Очищает базу данных от неподтвержденных пользователей с истекшим сроком верификации.
      *
@@ -38,25 +71,66 @@ public class ScheduledTasksService {
      *
      * <p>Логика работы:
      * <ol>
-     *   <li>Находит всех пользователей с неподтвержденным email</li>
-     *   <li>Фильтрует тех, у кого истек срок действия токена</li>
-     *   <li>Удаляет таких пользователей из системы</li>
+     *   <li>Удаляет пачку пользователей с неподтвержденным email и истекшим сроком
+     *   действия токена одним запросом в отдельной транзакции</li>
+     *   <li>Делает паузу и повторяет, пока удаляются полные пачки</li>
      *   <li>Логирует результат очистки</li>
      * </ol>
+     *
+     * <p>Сущности в память не загружаются, а блокировки удерживаются только на время
+     * одной пачки, поэтому объем очистки не влияет на потребление памяти и
+     * конкурентные регистрации.
+     *
+     * <p>В кластере задачу выполняет только экземпляр, захвативший блокировку.
      */
     @Scheduled(cron = "0 0 3 * * ?") // Каждый день в 3 ночи
-    @Transactional
+    @SchedulerLock(name = "cleanupUnverifiedUsers", lockAtLeastForSeconds = 60)
     public void cleanupUnverifiedUsers() {
         LocalDateTime now = LocalDateTime.now();
+        Timer.Sample sample = Timer.start();
+        long totalDeleted = 0;
+        int batches = 0;
 
-        List<User> expiredUsers = userRepository
-                .findByEmailVerifiedFalseAndEmailVerificationTokenExpiresAtBefore(now);
-
-        userRepository.deleteAll(expiredUsers);
+        try {
+            int deleted;
+            do {
+                Integer result = transactionTemplate.execute(status ->
+                        userRepository.deleteExpiredUnverifiedBatch(now, batchSize));
+                deleted = result != null ? result : 0;
+                totalDeleted += deleted;
+                batches++;
+                deletedUsersCounter.increment(deleted);
+                log.debug("Cleanup batch {}: deleted {} accounts, {} in total", batches, deleted, totalDeleted);
+            } while (deleted >= batchSize && pause());
+        } finally {
+            sample.stop(cleanupTimer);
+        }
 
         applicationLogService.log(INFO,
-                "Deleted " + expiredUsers.size() + " expired unverified accounts",
+                "Deleted " + totalDeleted + " expired unverified accounts in " + batches + " batches",
                 requestContext.getRqid(),
                 loggerName);
     }
+
+    /**
+     * Делает паузу между пачками.
+     *
+     * @return false если поток был прерван и очистку нужно остановить
+     */
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            applicationLogService.log(WARN,
+                    "Cleanup of unverified accounts interrupted, remaining rows will be deleted on the next run",
+                    requestContext.getRqid(),
+                    loggerName);
+            return false;
+        }
+    }
 }
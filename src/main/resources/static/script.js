@@ -1,10 +1,55 @@
+// Решение proof-of-work, подобранное в фоне (если режим включен на сервере)
+let powResult = null;
+
 document.addEventListener('DOMContentLoaded', function() {
+    // Если сервер выдает proof-of-work, решаем его в фоне вместо капчи
+    startProofOfWork();
     // Ждем 3 секунды для загрузки reCAPTCHA
     setTimeout(checkCaptchaAvailability, 3000);
 
 });
 
+// Запрашивает задачу proof-of-work и подбирает решение
+async function startProofOfWork() {
+    const response = await fetch('/api/captcha/pow', { cache: 'no-store' }).catch(() => null);
+    if (!response || !response.ok) {
+        return;
+    }
+    const challenge = await response.json();
+    document.getElementById('recaptcha-container').style.display = 'none';
+    powResult = solveProofOfWork(challenge.challenge, challenge.difficulty)
+        .then(solution => ({ challenge: challenge.challenge, solution: solution }));
+}
+
+// Ищет такое число, чтобы SHA-256(challenge + ":" + число) начинался с difficulty нулевых бит
+async function solveProofOfWork(challenge, difficulty) {
+    const encoder = new TextEncoder();
+    for (let counter = 0; ; counter++) {
+        const digest = new Uint8Array(
+            await crypto.subtle.digest('SHA-256', encoder.encode(challenge + ':' + counter)));
+        if (leadingZeroBits(digest) >= difficulty) {
+            return String(counter);
+        }
+    }
+}
+
+function leadingZeroBits(bytes) {
+    let bits = 0;
+    for (const b of bytes) {
+        if (b === 0) {
+            bits += 8;
+            continue;
+        }
+        bits += Math.clz32(b) - 24;
+        break;
+    }
+    return bits;
+}
+
 function checkCaptchaAvailability() {
+    if (powResult) {
+        return;
+    }
     // Если reCAPTCHA не загрузилась, показываем математическую задачу
     if (typeof grecaptcha === 'undefined' ||
         typeof grecaptcha.getResponse !== 'function' ||
@@ -14,7 +59,7 @@ function checkCaptchaAvailability() {
     }
 }
 
-function showMathCaptcha() {
+async function showMathCaptcha() {
     const mathCaptcha = document.getElementById('math-captcha');
     const recaptchaContainer = document.getElementById('recaptcha-container');
 
@@ -22,35 +67,17 @@ function showMathCaptcha() {
     recaptchaContainer.style.display = 'none';
 
     // Показываем математическую задачу
-    const { problem, answer } = generateMathProblem();
-    document.getElementById('math-problem').textContent = problem;
+    await loadMathChallenge();
     mathCaptcha.style.display = 'block';
-    mathCaptcha.dataset.answer = answer;
 }
 
-function generateMathProblem() {
-    const num1 = Math.floor(Math.random() * 10) + 1;
-    const num2 = Math.floor(Math.random() * 10) + 1;
-    const operators = ['+', '-', '*'];
-    const operator = operators[Math.floor(Math.random() * operators.length)];
-
-    let problem, answer;
-    switch(operator) {
-        case '+':
-            problem = `${num1} + ${num2}`;
-            answer = num1 + num2;
-            break;
-        case '-':
-            problem = `${num1} - ${num2}`;
-            answer = num1 - num2;
-            break;
-        case '*':
-            problem = `${num1} * ${num2}`;
-            answer = num1 * num2;
-            break;
-    }
-
-    return { problem, answer };
+// Запрашивает у сервера новую задачу с подписанным токеном
+async function loadMathChallenge() {
+    const response = await fetch('/api/captcha/challenge', { cache: 'no-store' });
+    const challenge = await response.json();
+    document.getElementById('math-problem').textContent = challenge.problem;
+    document.getElementById('math-captcha').dataset.token = challenge.token;
+    document.getElementById('math-answer').value = '';
 }
 // Переключение между вкладками
 function openTab(tabName) {
@@ -78,10 +105,17 @@ async function register() {
     let verificationData = {};
 
     try {
-        if (mathCaptcha.style.display !== 'none') {
+        if (powResult) {
+            // Проверка proof-of-work (решение подбирается в фоне после загрузки страницы)
+            const { challenge, solution } = await powResult;
+            verificationData = {
+                verificationType: 'pow',
+                powChallenge: challenge,
+                powSolution: solution
+            };
+        } else if (mathCaptcha.style.display !== 'none') {
             // Проверка математической капчи
             const userAnswer = document.getElementById('math-answer').value.trim();
-            const correctAnswer = mathCaptcha.dataset.answer;
 
             // Проверяем, что ответ не пустой
             if (!userAnswer) {
@@ -98,21 +132,10 @@ async function register() {
                 return;
             }
 
-            // Проверяем правильность ответа
-            if (parseInt(userAnswer) !== parseInt(correctAnswer)) {
-                errorElement.textContent = "Неправильный ответ. Попробуйте еще раз.";
-                const { problem, answer } = generateMathProblem();
-                document.getElementById('math-problem').textContent = problem;
-                mathCaptcha.dataset.answer = answer;
-                document.getElementById('math-answer').value = '';
-                document.getElementById('math-answer').focus();
-                return;
-            }
-
             verificationData = {
                 verificationType: 'math',
-                mathAnswer: correctAnswer,
-                mathProblem: document.getElementById('math-problem').textContent
+                mathToken: mathCaptcha.dataset.token,
+                mathAnswer: userAnswer
             };
         } else {
             // Проверка reCAPTCHA
@@ -135,13 +158,11 @@ async function register() {
 
         // Подготовка данных для отправки
         const requestData = {
-            rqid: 123456789,
-            registrationData: {
-                username: username,
-                email: email,
-                password: password,
-                ...verificationData
-            }
+            rqid: crypto.randomUUID(),
+            username: username,
+            email: email,
+            password: password,
+            ...verificationData
         };
 
 
@@ -195,10 +216,10 @@ function resetForm() {
 // Сброс капчи
 function resetCaptcha() {
     const mathCaptcha = document.getElementById('math-captcha');
-    if (mathCaptcha.style.display !== 'none') {
-        const { problem, answer } = generateMathProblem();
-        document.getElementById('math-problem').textContent = problem;
-        mathCaptcha.dataset.answer = answer;
+    if (powResult) {
+        startProofOfWork();
+    } else if (mathCaptcha.style.display !== 'none') {
+        loadMathChallenge();
     } else if (typeof grecaptcha !== 'undefined') {
         grecaptcha.reset();
         recaptchaContainer.style.display = 'none';
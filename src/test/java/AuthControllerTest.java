@@ -3,14 +3,15 @@ import com.bank.userservice.dto.LoginDto;
 import com.bank.userservice.dto.RegistrationDto;
 import com.bank.userservice.dto.UserResponseDto;
 import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
 
 import com.bank.userservice.dto.auth.RequestContext;
 
 import com.bank.userservice.service.AuthService;
+import com.bank.userservice.service.IdempotencyService;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import jakarta.mail.MessagingException;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -21,7 +22,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 /**
@@ -40,6 +44,8 @@ class AuthControllerTest {
     private AuthService authService;
     @Mock
     private RequestContext requestContext;
+    @Mock
+    private IdempotencyService idempotencyService;
 
     @InjectMocks
     private AuthController authController;
@@ -51,6 +57,15 @@ class AuthControllerTest {
     /** Тестовое имя пользователя */
     private final String testUsername = "testuser";
 
+    /**
+     * Запросы выполняются без сохранения ответа: повторы проверяются в IdempotencyServiceTest.
+     */
+    @BeforeEach
+    void setUp() {
+        lenient().when(idempotencyService.execute(any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+    }
+
     /**
      * Очистка MDC после каждого теста.
      */
@@ -70,21 +85,21 @@ class AuthControllerTest {
      * </ul>
      */
     @Test
-    void register_ValidInput_ReturnsOk() throws JsonProcessingException, MessagingException {
+    void register_ValidInput_ReturnsOk() {
         // 1. Подготовка
         RegistrationDto requestDto = createValidRegistrationDto();
-        AuthResponseDto mockResponse = createSuccessAuthResponse("Registration successful");
+        AuthResponseDto<AuthResultDto> mockResponse = createSuccessAuthResponse("Registration successful");
         // Настройка моков
-        when(authService.register(requestDto)).thenReturn(mockResponse);
+        when(authService.registerAsync(requestDto)).thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         // 2. Вызов
-        ResponseEntity<AuthResponseDto> response = authController.register(requestDto);
+        ResponseEntity<AuthResponseDto<AuthResultDto>> response = authController.register(requestDto).join();
 
         // 3. Проверки
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(testRqid, response.getBody().getRqid());
         assertEquals("Registration successful",
-                response.getBody().getResponse().get("message"));
+                response.getBody().getResponse().message());
 
         verify(requestContext).setRqid(testRqid);
         assertNull(MDC.get("rqid"));
@@ -100,22 +115,22 @@ class AuthControllerTest {
      * </ul>
      */
     @Test
-    void login_ValidInput_ReturnsOk() throws JsonProcessingException {
+    void login_ValidInput_ReturnsOk() {
         // 1. Подготовка
         LoginDto requestDto = createValidLoginDto();
-        AuthResponseDto mockResponse = createSuccessAuthResponse("Login successful");
+        AuthResponseDto<AuthResultDto> mockResponse = createSuccessAuthResponse("Login successful");
         // Настройка моков
-        when(authService.login(requestDto)).thenReturn(mockResponse);
+        when(authService.loginAsync(requestDto)).thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         // 2. Вызов
-        ResponseEntity<AuthResponseDto> response = authController.login(requestDto);
+        ResponseEntity<AuthResponseDto<AuthResultDto>> response = authController.login(requestDto).join();
 
         // 3. Проверки
         assertEquals(HttpStatus.OK, response.getStatusCode());
 
         assertEquals(testRqid, response.getBody().getRqid());
         assertEquals("Login successful",
-                response.getBody().getResponse().get("message"));
+                response.getBody().getResponse().message());
 
         verify(requestContext).setRqid(testRqid);
         assertNull(MDC.get("rqid"));
@@ -123,19 +138,22 @@ class AuthControllerTest {
     /**
      * Проверяет обработку ошибок при регистрации.
      *
+     * <p>Ошибка сервиса передается через результат асинхронного ответа
+     * и затем обрабатывается обработчиком исключений.
      */
     @Test
-    void register_ServiceThrowsException_CleansContext() throws JsonProcessingException, MessagingException {
+    void register_ServiceFails_CompletesExceptionally() {
         // 1. Подготовка
         RegistrationDto requestDto = createValidRegistrationDto();
 
         // 2. Настройка моков для генерации ошибки
-        when(authService.register(requestDto))
-                .thenThrow(new RuntimeException("Service error"));
+        when(authService.registerAsync(requestDto))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Service error")));
 
         // 3. Проверка исключения
-        assertThrows(RuntimeException.class,
-                () -> authController.register(requestDto));
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> authController.register(requestDto).join());
+        assertEquals("Service error", exception.getCause().getMessage());
 
         verify(requestContext).setRqid(testRqid);
         assertNull(MDC.get("rqid"));
@@ -147,14 +165,12 @@ class AuthControllerTest {
      * @param message сообщение для ответа
      * @return подготовленный AuthResponseDto
      */
-    private AuthResponseDto createSuccessAuthResponse(String message) {
-        AuthResponseDto response = new AuthResponseDto();
+    private AuthResponseDto<AuthResultDto> createSuccessAuthResponse(String message) {
+        AuthResponseDto<AuthResultDto> response = new AuthResponseDto<>();
         response.setRqid(testRqid);
         response.setStatusCode(HttpStatus.OK.value());
-        response.setResponse(Map.of(
-                "message", message,
-                "user", new UserResponseDto(1L, testUsername, testEmail, LocalDateTime.now())
-        ));
+        response.setResponse(new AuthResultDto(message,
+                new UserResponseDto(1L, testUsername, testEmail, LocalDateTime.now())));
         return response;
     }
     /**
@@ -0,0 +1,93 @@
+package com.bank.userservice.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link AdaptiveConcurrencyLimiter}.
+ *
+ * <p>Проверяет отказ сверх предела, рост предела при стабильной задержке
+ * и его снижение при росте задержки и запросах, не завершенных вовремя.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Тест предела.
+     *
+     * <p>Проверяет, что запрос сверх предела отклоняется, а освобожденное разрешение
+     * можно захватить снова.
+     */
+    @Test
+    void tryAcquire_LimitReached_RejectsUntilReleased() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(FAST, false);
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    /**
+     * Тест адаптации предела.
+     *
+     * <p>Проверяет, что при полной загрузке и стабильной задержке предел растет,
+     * а при росте задержки в 10 раз снижается до минимума.
+     */
+    @Test
+    void release_LatencyGrows_LimitShrinks() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 100, 1.5);
+
+        runAtLimit(limiter, FAST, 200);
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        runAtLimit(limiter, SLOW, 5);
+        assertEquals(4, limiter.getLimit());
+    }
+
+    /**
+     * Тест запросов, не завершенных вовремя.
+     *
+     * <p>Проверяет, что каждый такой запрос уменьшает предел, а недогруженный
+     * предел не растет.
+     */
+    @Test
+    void release_DroppedOrUnderused_DoesNotGrow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 100, 1.5);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+        assertEquals(20, limiter.getLimit());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SLOW, true);
+        assertEquals((int) (20 * AdaptiveConcurrencyLimiter.BACKOFF_RATIO), limiter.getLimit());
+    }
+
+    /**
+     * Выполняет запросы пачками по текущему пределу с заданной задержкой.
+     */
+    private static void runAtLimit(AdaptiveConcurrencyLimiter limiter, long rttNanos, int batches) {
+        for (int batch = 0; batch < batches; batch++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.ErrorDto;
+import com.bank.userservice.service.IntegrationLogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link ConcurrencyLimitFilter}.
+ *
+ * <p>Проверяет отказ сверх предела без вызова контроллера, раздельные пределы
+ * конечных точек и удержание разрешения до завершения асинхронного ответа.
+ */
+class ConcurrencyLimitFilterTest {
+
+    private final IntegrationLogService integrationLogService = mock(IntegrationLogService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        when(integrationLogService.mapToErrorResponseDto(any(), anyString())).thenAnswer(invocation -> {
+            AuthResponseDto<ErrorDto> response = new AuthResponseDto<>();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setResponse(new ErrorDto(invocation.getArgument(1)));
+            return response;
+        });
+        filter = new ConcurrencyLimitFilter(integrationLogService, new JacksonConfig().objectMapper(),
+                meterRegistry, true, 1, 1, 10, 1.5);
+    }
+
+    /**
+     * Тест отказа под перегрузкой.
+     *
+     * <p>Проверяет, что пока асинхронный запрос регистрации не завершен, следующий
+     * получает 503 без вызова цепочки, вход при этом не ограничен, а после завершения
+     * ответа разрешение освобождается.
+     */
+    @Test
+    void doFilter_LimitReached_RejectsUntilAsyncResponseCompletes() throws Exception {
+        AtomicReference<AsyncContext> asyncContext = new AtomicReference<>();
+        filter.doFilter(post("/api/auth/register"), new MockHttpServletResponse(),
+                (req, res) -> asyncContext.set(req.startAsync()));
+        assertEquals(1.0, gauge("app.concurrency.in-flight", "register"));
+
+        AtomicInteger calls = new AtomicInteger();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(post("/api/auth/register"), rejected, (req, res) -> calls.incrementAndGet());
+        filter.doFilter(post("/api/auth/login"), new MockHttpServletResponse(), (req, res) -> calls.incrementAndGet());
+
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"error\":\"Service is overloaded, try again later\""));
+        assertEquals(1.0, meterRegistry.get("app.concurrency.requests")
+                .tags("endpoint", "register", "outcome", "rejected").counter().count());
+
+        asyncContext.get().complete();
+
+        assertEquals(0.0, gauge("app.concurrency.in-flight", "register"));
+        filter.doFilter(post("/api/auth/register"), new MockHttpServletResponse(), (req, res) -> calls.incrementAndGet());
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Тест путей вне контроллера аутентификации.
+     *
+     * <p>Проверяет, что они не ограничиваются.
+     */
+    @Test
+    void doFilter_OtherPath_NotLimited() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(post("/api/captcha/challenge"), new MockHttpServletResponse(),
+                    (req, res) -> req.startAsync());
+        }
+        filter.doFilter(post("/api/captcha/challenge"), new MockHttpServletResponse(), (req, res) -> calls.incrementAndGet());
+
+        assertEquals(1, calls.get());
+    }
+
+    private double gauge(String name, String endpoint) {
+        return meterRegistry.get(name).tag("endpoint", endpoint).gauge().value();
+    }
+
+    private static MockHttpServletRequest post(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.model.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тестовый класс для {@link HibernateCacheConfig}.
+ *
+ * <p>Проверяет создание регионов кэша и передачу менеджера кэшей в Hibernate.
+ */
+class HibernateCacheConfigTest {
+
+    private final HibernateCacheConfig config = new HibernateCacheConfig();
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = config.hibernateCacheManager(2, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    /**
+     * Тест создания регионов.
+     *
+     * <p>Проверяет, что созданы регионы пользователей, натуральных идентификаторов
+     * и кэша запросов, регион пользователей ограничен по размеру и времени жизни,
+     * а метки времени изменения таблиц не вытесняются.
+     */
+    @Test
+    void hibernateCacheManager_CreatesBoundedRegions() {
+        assertNotNull(cacheManager.getCache(User.NATURAL_ID_CACHE_REGION));
+        assertNotNull(cacheManager.getCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME));
+        assertNotNull(cacheManager.getCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME));
+
+        CaffeineConfiguration<Object, Object> users = configuration(User.CACHE_REGION);
+        assertEquals(OptionalLong.of(2), users.getMaximumSize());
+        assertEquals(OptionalLong.of(TimeUnit.SECONDS.toNanos(60)), users.getExpireAfterWrite());
+
+        CaffeineConfiguration<Object, Object> timestamps =
+                configuration(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME);
+        assertTrue(timestamps.getMaximumSize().isEmpty());
+        assertTrue(timestamps.getExpireAfterWrite().isEmpty());
+    }
+
+    /**
+     * Тест настройки Hibernate.
+     *
+     * <p>Проверяет, что Hibernate использует созданный менеджер кэшей
+     * и не создает неописанные регионы.
+     */
+    @Test
+    void hibernateCacheCustomizer_PassesCacheManager() {
+        Map<String, Object> properties = new HashMap<>();
+
+        config.hibernateCacheCustomizer(cacheManager).customize(properties);
+
+        assertSame(cacheManager, properties.get(ConfigSettings.CACHE_MANAGER));
+        assertEquals("fail", properties.get(ConfigSettings.MISSING_CACHE_STRATEGY));
+        assertNull(cacheManager.getCache("unknown-region"));
+    }
+
+    /**
+     * Читает настройки Caffeine региона.
+     *
+     * <p>JCache принимает только необобщенный класс конфигурации, поэтому приведение не проверяется.
+     *
+     * @param region имя региона
+     * @return настройки региона
+     */
+    @SuppressWarnings("unchecked")
+    private CaffeineConfiguration<Object, Object> configuration(String region) {
+        return cacheManager.getCache(region).getConfiguration(CaffeineConfiguration.class);
+    }
+}
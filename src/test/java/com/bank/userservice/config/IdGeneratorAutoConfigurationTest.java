@@ -0,0 +1,53 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.id.IdGenerator;
+import com.bank.userservice.id.MonotonicIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестовый класс для {@link IdGeneratorAutoConfiguration}.
+ *
+ * <p>Проверяет регистрацию генератора по умолчанию и его замену бином приложения.
+ */
+class IdGeneratorAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(IdGeneratorAutoConfiguration.class));
+
+    /**
+     * Тест генератора по умолчанию.
+     */
+    @Test
+    void idGenerator_NoCustomBean_RegistersMonotonicGenerator() {
+        contextRunner.run(context -> assertThat(context)
+                .getBean(IdGenerator.class).isInstanceOf(MonotonicIdGenerator.class));
+    }
+
+    /**
+     * Тест замены генератора.
+     *
+     * <p>Проверяет, что собственный бин приложения используется вместо генератора по умолчанию.
+     */
+    @Test
+    void idGenerator_CustomBean_BacksOff() {
+        contextRunner.withUserConfiguration(CustomIdGeneratorConfig.class)
+                .run(context -> {
+                    assertThat(context).hasSingleBean(IdGenerator.class);
+                    assertThat(context.getBean(IdGenerator.class).nextId("RES_")).isEqualTo("RES_custom");
+                });
+    }
+
+    @Configuration
+    static class CustomIdGeneratorConfig {
+        @Bean
+        IdGenerator customIdGenerator() {
+            return prefix -> prefix + "custom";
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Тестовый класс для {@link RequestContextTaskDecorator}.
+ *
+ * <p>Проверяет перенос rqid и MDC в поток пула и восстановление
+ * контекста потока пула после задачи.
+ */
+class RequestContextTaskDecoratorTest {
+
+    private final RequestContext requestContext = new RequestContext();
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setTaskDecorator(new RequestContextTaskDecorator());
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        requestContext.clear();
+        MDC.clear();
+    }
+
+    /**
+     * Тест переноса контекста в цепочку CompletableFuture на пуле.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>rqid и дополнительные ключи MDC доступны в потоке пула</li>
+     *   <li>После задачи поток пула не сохраняет чужой rqid</li>
+     * </ul>
+     */
+    @Test
+    void decorate_PropagatesAndRestoresContext() {
+        requestContext.setRqid("rqid-1");
+        MDC.put("user", "alice");
+
+        String seen = CompletableFuture.supplyAsync(
+                () -> requestContext.getRqid() + "/" + MDC.get(RequestContext.MDC_RQID) + "/" + MDC.get("user"),
+                executor).join();
+
+        assertEquals("rqid-1/rqid-1/alice", seen);
+
+        requestContext.clear();
+        MDC.clear();
+        String leaked = CompletableFuture.supplyAsync(
+                () -> requestContext.getRqid() + "/" + MDC.get(RequestContext.MDC_RQID), executor).join();
+
+        assertEquals("null/null", leaked);
+        assertNull(requestContext.getRqid());
+    }
+}
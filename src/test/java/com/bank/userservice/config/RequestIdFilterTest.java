@@ -0,0 +1,113 @@
+package com.bank.userservice.config;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import com.bank.userservice.id.MonotonicIdGenerator;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link RequestIdFilter}.
+ *
+ * <p>Проверяет заполнение {@link RequestContext} и MDC на время запроса,
+ * их очистку после ответа и восстановление при async dispatch.
+ */
+class RequestIdFilterTest {
+
+    private final RequestContext requestContext = new RequestContext();
+
+    private final RequestIdFilter filter = new RequestIdFilter(requestContext, new MonotonicIdGenerator());
+
+    @AfterEach
+    void tearDown() {
+        requestContext.clear();
+    }
+
+    /**
+     * Тест заполнения контекста из заголовка X-Request-Id.
+     */
+    @Test
+    void doFilter_HeaderPresent_UsesHeaderAndClearsAfterwards() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestIdFilter.HEADER, "header-rqid");
+        AtomicReference<String> seenRqid = new AtomicReference<>();
+        AtomicReference<String> seenMdc = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            seenRqid.set(requestContext.getRqid());
+            seenMdc.set(MDC.get(RequestContext.MDC_RQID));
+        });
+
+        assertEquals("header-rqid", seenRqid.get());
+        assertEquals("header-rqid", seenMdc.get());
+        assertNull(requestContext.getRqid());
+        assertNull(MDC.get(RequestContext.MDC_RQID));
+    }
+
+    /**
+     * Тест заполнения контекста из параметра rqid.
+     */
+    @Test
+    void doFilter_ParameterPresent_UsesParameter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("rqid", "param-rqid");
+        AtomicReference<String> seenRqid = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> seenRqid.set(requestContext.getRqid()));
+
+        assertEquals("param-rqid", seenRqid.get());
+    }
+
+    /**
+     * Тест генерации rqid, если клиент его не передал.
+     */
+    @Test
+    void doFilter_NoRqid_GeneratesOne() throws Exception {
+        AtomicReference<String> seenRqid = new AtomicReference<>();
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                (req, res) -> seenRqid.set(requestContext.getRqid()));
+
+        assertNotNull(seenRqid.get());
+        assertTrue(seenRqid.get().startsWith("RQ_"));
+    }
+
+    /**
+     * Тест асинхронного ответа контроллера.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Поток контейнера очищается после запуска асинхронной обработки</li>
+     *   <li>При async dispatch восстанавливается rqid, установленный контроллером из тела запроса</li>
+     * </ul>
+     */
+    @Test
+    void doFilter_AsyncDispatch_RestoresControllerRqid() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        request.addHeader(RequestIdFilter.HEADER, "header-rqid");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            requestContext.setRqid("body-rqid");
+            req.startAsync();
+        });
+        assertNull(requestContext.getRqid());
+
+        request.setAsyncStarted(false);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        AtomicReference<String> seenRqid = new AtomicReference<>();
+        filter.doFilter(request, response, (req, res) -> seenRqid.set(requestContext.getRqid()));
+
+        assertEquals("body-rqid", seenRqid.get());
+        assertNull(requestContext.getRqid());
+    }
+}
@@ -0,0 +1,105 @@
+package com.bank.userservice.datasource;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import com.bank.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link QueryMetricsListener} и {@link RepositoryMethodAspect}.
+ *
+ * <p>Проверяет метрики времени запросов и количества строк с привязкой к методу репозитория.
+ */
+class QueryMetricsListenerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private QueryMetricsListener listener;
+
+    private final RepositoryMethodAspect aspect = new RepositoryMethodAspect();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new QueryMetricsListener(meterRegistry, new RequestContext(), 200);
+    }
+
+    /**
+     * Тест запроса внутри метода репозитория.
+     *
+     * <p>Проверяет, что время запроса и количество измененных строк
+     * записываются с типом запроса и методом репозитория.
+     */
+    @Test
+    void afterQuery_InsideRepositoryMethod_RecordsTimerAndRows() throws Throwable {
+        ProceedingJoinPoint joinPoint = repositoryCall("deleteExpiredUnverifiedBatch", () -> {
+            ExecutionInfo execInfo = new ExecutionInfo();
+            execInfo.setSuccess(true);
+            execInfo.setResult(3);
+            List<QueryInfo> queries = List.of(new QueryInfo("DELETE FROM users WHERE id IN (?)"));
+            listener.beforeQuery(execInfo, queries);
+            listener.afterQuery(execInfo, queries);
+        });
+
+        aspect.trackRepositoryMethod(joinPoint);
+
+        String method = "UserRepository.deleteExpiredUnverifiedBatch";
+        Timer timer = meterRegistry.get("app.db.query")
+                .tags("type", "delete", "method", method, "outcome", "success").timer();
+        assertEquals(1, timer.count());
+        assertEquals(3.0, meterRegistry.get("app.db.rows").tags("type", "delete", "method", method)
+                .counter().count());
+    }
+
+    /**
+     * Тест чтения строк.
+     *
+     * <p>Проверяет, что каждая прочитанная строка учитывается, а запросы
+     * вне методов репозиториев помечаются как {@value RepositoryMethodAspect#NO_METHOD}.
+     */
+    @Test
+    void afterMethod_ResultSetNext_CountsSelectedRows() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+
+        listener.afterMethod(next(resultSet, true));
+        listener.afterMethod(next(resultSet, true));
+        listener.afterMethod(next(resultSet, false));
+
+        assertEquals(2.0, meterRegistry.get("app.db.rows")
+                .tags("type", "select", "method", RepositoryMethodAspect.NO_METHOD).counter().count());
+    }
+
+    private ProceedingJoinPoint repositoryCall(String methodName, Runnable body) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn(methodName);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(mock(UserRepository.class));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            body.run();
+            return null;
+        });
+        return joinPoint;
+    }
+
+    private static MethodExecutionContext next(ResultSet resultSet, boolean hasRow) throws Exception {
+        MethodExecutionContext context = new MethodExecutionContext();
+        context.setTarget(resultSet);
+        context.setMethod(ResultSet.class.getMethod("next"));
+        context.setResult(hasRow);
+        return context;
+    }
+}
@@ -0,0 +1,176 @@
+package com.bank.userservice.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link ReplicaRoutingDataSource}.
+ *
+ * <p>Проверяет выбор БД по признаку read-only транзакции, учет отставания реплики
+ * и переход на основную БД при недоступности реплики.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        // Интервал проверки большой: отставание измеряется только явным вызовом checkReplicas()
+        routingDataSource = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica),
+                Duration.ofSeconds(5), Duration.ofHours(1));
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        routingDataSource.destroy();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    /**
+     * Тест маршрутизации транзакции на запись.
+     *
+     * <p>Проверяет, что вне read-only транзакции используется основная БД,
+     * даже если реплика доступна.
+     */
+    @Test
+    void getConnection_ReadWrite_UsesPrimary() throws Exception {
+        stubReplicaLag(0.0);
+        routingDataSource.checkReplicas();
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    /**
+     * Тест маршрутизации транзакции только для чтения.
+     *
+     * <p>Проверяет, что read-only транзакция выполняется на реплике с допустимым отставанием.
+     */
+    @Test
+    void getConnection_ReadOnly_UsesReplica() throws Exception {
+        Connection lagCheckConnection = stubReplicaLag(1200.0);
+        routingDataSource.checkReplicas();
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertEquals(1200.0, routingDataSource.getReplicaLagMs("replica-0"));
+        verify(lagCheckConnection).close();
+        verifyNoInteractions(primary);
+    }
+
+    /**
+     * Тест превышения допустимого отставания.
+     *
+     * <p>Проверяет, что при отставании реплики больше допустимого
+     * read-only транзакция выполняется на основной БД.
+     */
+    @Test
+    void getConnection_ReplicaLagging_FallsBackToPrimary() throws Exception {
+        stubReplicaLag(60_000.0);
+        routingDataSource.checkReplicas();
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    /**
+     * Тест реплики, потерявшей связь с основной БД.
+     *
+     * <p>Проверяет, что реплика, для которой запрос отставания вернул NULL (WAL не принимается),
+     * исключается из выбора.
+     */
+    @Test
+    void getConnection_ReplicaNotStreaming_FallsBackToPrimary() throws Exception {
+        stubReplicaLag(0.0);
+        routingDataSource.checkReplicas();
+        assertEquals(0.0, routingDataSource.getReplicaLagMs("replica-0"));
+
+        stubReplicaLag(null);
+        routingDataSource.checkReplicas();
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertNull(routingDataSource.getReplicaLagMs("replica-0"));
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    /**
+     * Тест недоступной реплики.
+     *
+     * <p>Проверяет, что при ошибке соединения с репликой запрос выполняется на основной БД,
+     * а реплика исключается из выбора до следующей успешной проверки.
+     */
+    @Test
+    void getConnection_ReplicaDown_FallsBackToPrimaryAndExcludesReplica() throws Exception {
+        stubReplicaLag(0.0);
+        routingDataSource.checkReplicas();
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertNull(routingDataSource.getReplicaLagMs("replica-0"));
+
+        // Следующая проверка тоже не проходит: реплика остается исключенной
+        routingDataSource.checkReplicas();
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(replica, times(3)).getConnection();
+    }
+
+    /**
+     * Настраивает реплику так, чтобы запрос отставания вернул заданное значение.
+     *
+     * @param lagMs отставание в миллисекундах, null - реплика не принимает WAL
+     * @return соединение, через которое измеряется отставание
+     */
+    private Connection stubReplicaLag(Double lagMs) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(ReplicaRoutingDataSource.LAG_QUERY)).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        if (lagMs != null) {
+            when(resultSet.getDouble(1)).thenReturn(lagMs);
+        } else {
+            when(resultSet.getDouble(1)).thenReturn(0.0);
+            when(resultSet.wasNull()).thenReturn(true);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,93 @@
+package com.bank.userservice.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link MonotonicIdGenerator}.
+ *
+ * <p>Проверяет формат идентификаторов, их возрастание при одинаковом и убывающем
+ * времени и уникальность при одновременной генерации.
+ */
+class MonotonicIdGeneratorTest {
+
+    /**
+     * Тест формата.
+     *
+     * <p>Проверяет префикс, длину, алфавит Crockford Base32 и то, что время
+     * записано в первых 10 символах.
+     */
+    @Test
+    void nextId_HasPrefixAndTimeOrderedBase32Body() {
+        MonotonicIdGenerator generator = new MonotonicIdGenerator(() -> 1_700_000_000_000L);
+        MonotonicIdGenerator later = new MonotonicIdGenerator(() -> 1_700_000_000_001L);
+
+        String id = generator.nextId("RES_");
+
+        assertTrue(id.startsWith("RES_"));
+        assertEquals(4 + MonotonicIdGenerator.LENGTH, id.length());
+        assertTrue(id.substring(4).matches("[0-9A-HJKMNP-TV-Z]{26}"), id);
+        assertTrue(later.nextId().compareTo(generator.nextId()) > 0);
+    }
+
+    /**
+     * Тест монотонности.
+     *
+     * <p>Проверяет, что идентификаторы строго возрастают в пределах одной миллисекунды,
+     * при переполнении порядкового номера и при переводе часов назад.
+     */
+    @Test
+    void nextId_SameOrEarlierTime_StillIncreases() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        MonotonicIdGenerator generator = new MonotonicIdGenerator(clock::get);
+
+        String previous = generator.nextId();
+        for (int i = 0; i < 70_000; i++) {
+            if (i == 50_000) {
+                clock.addAndGet(-1_000);
+            }
+            String next = generator.nextId();
+            assertTrue(next.compareTo(previous) > 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+
+    /**
+     * Тест одновременной генерации.
+     *
+     * <p>Проверяет, что идентификаторы, выданные из нескольких потоков, не повторяются.
+     */
+    @Test
+    void nextId_ConcurrentCallers_AllUnique() throws Exception {
+        MonotonicIdGenerator generator = new MonotonicIdGenerator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        ids.add(generator.nextId("RQ_"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(40_000, ids.size());
+    }
+}
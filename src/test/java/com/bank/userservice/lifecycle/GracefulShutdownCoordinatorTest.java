@@ -0,0 +1,180 @@
+package com.bank.userservice.lifecycle;
+
+import com.bank.userservice.dto.PendingEmailDto;
+import com.bank.userservice.service.EmailOutbox;
+import com.bank.userservice.service.EmailService;
+import com.bank.userservice.service.EmailSpillService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link GracefulShutdownCoordinator}.
+ *
+ * <p>Проверяет порядок шагов остановки, соблюдение срока и запись длительностей шагов.
+ */
+@ExtendWith(MockitoExtension.class)
+class GracefulShutdownCoordinatorTest {
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private EmailOutbox emailOutbox;
+
+    @Mock
+    private EmailSpillService emailSpillService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ThreadPoolTaskExecutor authIoExecutor;
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    @BeforeEach
+    void setUp() {
+        authIoExecutor = executor("auth-io-test-");
+        passwordHashExecutor = executor("password-hash-test-");
+    }
+
+    @AfterEach
+    void tearDown() {
+        authIoExecutor.getThreadPoolExecutor().shutdownNow();
+        passwordHashExecutor.getThreadPoolExecutor().shutdownNow();
+    }
+
+    /**
+     * Тест полной остановки.
+     *
+     * <p>Проверяет, что повторная отправка по расписанию прекращается и начатая задача пула
+     * завершается до отправки писем из очереди, неотправленные письма сохраняются,
+     * а длительность каждого шага записывается в метрику.
+     */
+    @Test
+    void stop_DrainsExecutorsThenFlushesAndSpillsOutbox() {
+        AtomicBoolean taskFinished = new AtomicBoolean();
+        authIoExecutor.execute(() -> {
+            sleep(200);
+            taskFinished.set(true);
+        });
+        List<PendingEmailDto> leftovers = List.of(new PendingEmailDto("user@example.com", "s", "b", false, "rqid", 1));
+        when(emailService.stopRedelivery(any())).thenReturn(true);
+        when(emailOutbox.size()).thenReturn(2);
+        when(emailService.flushOutbox(any())).thenAnswer(invocation -> {
+            assertTrue(taskFinished.get(), "Outbox flushed before executor tasks finished");
+            return 1;
+        });
+        when(emailOutbox.drain()).thenReturn(leftovers);
+        when(emailSpillService.spill(leftovers)).thenReturn(1);
+
+        GracefulShutdownCoordinator coordinator = coordinator(Duration.ofSeconds(5));
+        coordinator.start();
+        coordinator.onContextClosed();
+        coordinator.stop();
+
+        InOrder inOrder = inOrder(emailSpillService, emailService);
+        inOrder.verify(emailService).stopRedelivery(any());
+        inOrder.verify(emailService).flushOutbox(any());
+        inOrder.verify(emailSpillService).spill(leftovers);
+        for (String step : List.of("requests", "executors", "email", "spill")) {
+            assertNotNull(meterRegistry.find("app.shutdown.drain").tag("step", step).timer(), step);
+        }
+        assertTrue(authIoExecutor.getThreadPoolExecutor().isTerminated());
+    }
+
+    /**
+     * Тест цепочки шагов в двух пулах.
+     *
+     * <p>Проверяет, что пулы останавливаются только после простоя обоих: шаг, переданный
+     * из пула ввода-вывода в пул хеширования после начала остановки, выполняется,
+     * и CompletableFuture цепочки завершается до отправки писем из очереди.
+     */
+    @Test
+    void stop_TwoStagePipeline_SecondStageRunsBeforeShutdown() {
+        CompletableFuture<Void> pipeline = CompletableFuture
+                .runAsync(() -> sleep(200), authIoExecutor)
+                .thenRunAsync(() -> sleep(100), passwordHashExecutor);
+        when(emailService.stopRedelivery(any())).thenReturn(true);
+        when(emailOutbox.size()).thenReturn(1);
+        when(emailService.flushOutbox(any())).thenAnswer(invocation -> {
+            assertTrue(pipeline.isDone(), "Outbox flushed before the pipeline finished");
+            return 0;
+        });
+        when(emailOutbox.drain()).thenReturn(List.of());
+
+        coordinator(Duration.ofSeconds(5)).stop();
+
+        assertTrue(pipeline.isDone());
+        assertFalse(pipeline.isCompletedExceptionally());
+        assertTrue(passwordHashExecutor.getThreadPoolExecutor().isTerminated());
+    }
+
+    /**
+     * Тест срока остановки.
+     *
+     * <p>Проверяет, что зависшая задача пула не задерживает остановку дольше срока,
+     * а письма из очереди все равно сохраняются.
+     */
+    @Test
+    void stop_StuckTask_GivesUpAtDeadlineAndStillSpills() {
+        CountDownLatch release = new CountDownLatch(1);
+        passwordHashExecutor.execute(() -> await(release));
+        when(emailOutbox.drain()).thenReturn(List.of());
+
+        GracefulShutdownCoordinator coordinator = coordinator(Duration.ofMillis(300));
+        long started = System.nanoTime();
+        coordinator.stop();
+        release.countDown();
+
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(3));
+        verify(emailService, never()).flushOutbox(any());
+        verify(emailSpillService).spill(List.of());
+    }
+
+    private GracefulShutdownCoordinator coordinator(Duration drainTimeout) {
+        return new GracefulShutdownCoordinator(authIoExecutor, passwordHashExecutor, emailService, emailOutbox,
+                emailSpillService, meterRegistry, drainTimeout);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(1);
+        executor.initialize();
+        return executor;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.bank.userservice.repository;
+
+import com.bank.userservice.UserServiceApplication;
+import com.bank.userservice.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Замер числа SQL-запросов при поиске пользователей с кэшем второго уровня и без него.
+ *
+ * <p>В каждой итерации выполняются поиски входа ({@code findCredentialsByEmail}),
+ * загрузки пользователя по JWT ({@code findByUsernameOrEmail}) и по натуральному
+ * идентификатору ({@code findByEmail}). Число запросов считается статистикой Hibernate. Тест не входит
+ * в обычную сборку и запускается против локальной PostgreSQL (схему создает Liquibase):
+ * <pre>
+ * mvn test -Dtest=UserCacheBenchmarkIT -Dsurefire.failIfNoSpecifiedTests=false \
+ *     -Dbench.datasource.url=jdbc:postgresql://localhost:5432/bank_db
+ * </pre>
+ */
+@SpringBootTest(classes = UserServiceApplication.class)
+class UserCacheBenchmarkIT {
+    private static final int ITERATIONS = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> System.getProperty("bench.datasource.url", "jdbc:postgresql://localhost:5432/bank_db"));
+        registry.add("spring.datasource.username", () -> System.getProperty("bench.datasource.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("bench.datasource.password", "qwerty123"));
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        registry.add("app.jwt.secret", () -> "bench-jwt-secret");
+        registry.add("app.jwt.expiration-ms", () -> "60000");
+        registry.add("app.captcha.secret", () -> "bench-captcha-secret");
+        registry.add("app.log-archive.enabled", () -> "false");
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String name = "bench-" + UUID.randomUUID().toString().substring(0, 8);
+        user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("hash");
+        user.setEmailVerified(true);
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+    }
+
+    /**
+     * Замер без кэша (кэш очищается перед каждым поиском) и с заполненным кэшем.
+     *
+     * <p>Из трех поисков из кэша обслуживаются вход и поиск по натуральному идентификатору;
+     * поиск по имени или email кэш запросов не использует, поэтому выполняет один запрос
+     * в каждой итерации.
+     */
+    @Test
+    void lookups_WarmCache_OnlyUncachedLookupHitsDatabase() {
+        long cold = run(true);
+        long warm = run(false);
+
+        System.out.printf("User lookups, %d iterations: %d SQL statements with cache evicted, %d with warm cache%n",
+                ITERATIONS, cold, warm);
+        assertEquals(3L * ITERATIONS, cold);
+        assertEquals(ITERATIONS, warm);
+    }
+
+    /**
+     * Выполняет итерации поиска.
+     *
+     * @param evict очищать ли кэш перед каждым поиском
+     * @return количество выполненных SQL-запросов
+     */
+    private long run(boolean evict) {
+        // Прогрев: первая итерация заполняет кэш
+        lookups(false);
+        statistics.clear();
+        for (int i = 0; i < ITERATIONS; i++) {
+            lookups(evict);
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void lookups(boolean evict) {
+        evictIf(evict);
+        userRepository.findCredentialsByEmail(user.getEmail()).orElseThrow();
+        evictIf(evict);
+        userRepository.findByUsernameOrEmail(user.getUsername(), user.getUsername()).orElseThrow();
+        evictIf(evict);
+        userRepository.findByEmail(user.getEmail().toUpperCase()).orElseThrow();
+    }
+
+    private void evictIf(boolean evict) {
+        if (evict) {
+            entityManagerFactory.getCache().evictAll();
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+    }
+}
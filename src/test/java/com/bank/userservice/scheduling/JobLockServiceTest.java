@@ -0,0 +1,103 @@
+package com.bank.userservice.scheduling;
+
+import com.bank.userservice.repository.JobLockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link JobLockService}.
+ *
+ * <p>Проверяет захват, продление и освобождение блокировок.
+ */
+@ExtendWith(MockitoExtension.class)
+class JobLockServiceTest {
+
+    @Mock
+    private JobLockRepository jobLockRepository;
+
+    private JobLockService jobLockService;
+
+    @BeforeEach
+    void setUp() {
+        jobLockService = new JobLockService(jobLockRepository, "instance-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobLockService.shutdown();
+    }
+
+    /**
+     * Тест захвата блокировки.
+     *
+     * <p>Проверяет передачу идентификатора экземпляра и срока аренды в репозиторий.
+     */
+    @Test
+    void tryAcquire_ReturnsRepositoryResult() {
+        when(jobLockRepository.tryAcquire("job", "instance-1", 60_000)).thenReturn(1, 0);
+
+        assertTrue(jobLockService.tryAcquire("job", Duration.ofMinutes(1)));
+        assertFalse(jobLockService.tryAcquire("job", Duration.ofMinutes(1)));
+        assertEquals("instance-1", jobLockService.getInstanceId());
+    }
+
+    /**
+     * Тест продления аренды.
+     *
+     * <p>Проверяет, что аренда продлевается периодически и продление
+     * не прекращается после ошибки БД.
+     */
+    @Test
+    void startHeartbeat_ExtendsLeasePeriodically() {
+        when(jobLockRepository.extend("job", "instance-1", 30))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(1);
+
+        ScheduledFuture<?> heartbeat = jobLockService.startHeartbeat("job", Duration.ofMillis(30));
+        try {
+            verify(jobLockRepository, timeout(1000).atLeast(3)).extend("job", "instance-1", 30);
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    /**
+     * Тест освобождения блокировки с минимальным сроком удержания.
+     */
+    @Test
+    void release_PassesLockAtLeastFor() {
+        when(jobLockRepository.release("job", "instance-1", 10_000)).thenReturn(1);
+
+        jobLockService.release("job", Duration.ofSeconds(10));
+
+        verify(jobLockRepository).release("job", "instance-1", 10_000);
+    }
+
+    /**
+     * Тест генерации идентификатора экземпляра, если он не задан.
+     */
+    @Test
+    void constructor_BlankInstanceId_GeneratesUniqueId() {
+        JobLockService first = new JobLockService(jobLockRepository, "");
+        JobLockService second = new JobLockService(jobLockRepository, null);
+        try {
+            assertFalse(first.getInstanceId().isBlank());
+            assertFalse(first.getInstanceId().equals(second.getInstanceId()));
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+}
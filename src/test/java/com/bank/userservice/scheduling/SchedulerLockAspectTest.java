@@ -0,0 +1,102 @@
+package com.bank.userservice.scheduling;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link SchedulerLockAspect}.
+ *
+ * <p>Проверяет запуск задачи только при захваченной блокировке,
+ * продление аренды и освобождение блокировки.
+ */
+@ExtendWith(MockitoExtension.class)
+class SchedulerLockAspectTest {
+
+    @Mock
+    private JobLockService jobLockService;
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private ScheduledFuture<?> heartbeat;
+
+    @InjectMocks
+    private SchedulerLockAspect schedulerLockAspect;
+
+    /**
+     * Тест выполнения задачи при захваченной блокировке.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Выполнение задачи</li>
+     *   <li>Остановку продления аренды</li>
+     *   <li>Освобождение блокировки с минимальным сроком удержания</li>
+     * </ul>
+     */
+    @Test
+    void runLocked_LockAcquired_ProceedsAndReleases() throws Throwable {
+        SchedulerLock schedulerLock = lockedJob();
+        when(jobLockService.tryAcquire("lockedJob", Duration.ofSeconds(30))).thenReturn(true);
+        doReturn(heartbeat).when(jobLockService).startHeartbeat("lockedJob", Duration.ofSeconds(30));
+        when(joinPoint.proceed()).thenReturn("done");
+
+        Object result = schedulerLockAspect.runLocked(joinPoint, schedulerLock);
+
+        assertEquals("done", result);
+        verify(heartbeat).cancel(false);
+        verify(jobLockService).release("lockedJob", Duration.ofSeconds(10));
+    }
+
+    /**
+     * Тест пропуска задачи, если блокировку держит другой экземпляр.
+     */
+    @Test
+    void runLocked_LockHeldByOtherInstance_Skips() throws Throwable {
+        SchedulerLock schedulerLock = lockedJob();
+        when(jobLockService.tryAcquire("lockedJob", Duration.ofSeconds(30))).thenReturn(false);
+
+        assertNull(schedulerLockAspect.runLocked(joinPoint, schedulerLock));
+
+        verify(joinPoint, never()).proceed();
+        verify(jobLockService, never()).release(anyString(), any());
+    }
+
+    /**
+     * Тест освобождения блокировки при ошибке задачи.
+     */
+    @Test
+    void runLocked_JobFails_ReleasesLock() throws Throwable {
+        SchedulerLock schedulerLock = lockedJob();
+        when(jobLockService.tryAcquire("lockedJob", Duration.ofSeconds(30))).thenReturn(true);
+        doReturn(heartbeat).when(jobLockService).startHeartbeat("lockedJob", Duration.ofSeconds(30));
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> schedulerLockAspect.runLocked(joinPoint, schedulerLock));
+
+        verify(heartbeat).cancel(false);
+        verify(jobLockService).release("lockedJob", Duration.ofSeconds(10));
+    }
+
+    private static SchedulerLock lockedJob() throws NoSuchMethodException {
+        return SchedulerLockAspectTest.class.getDeclaredMethod("annotatedJob").getAnnotation(SchedulerLock.class);
+    }
+
+    @SchedulerLock(name = "lockedJob", leaseSeconds = 30, lockAtLeastForSeconds = 10)
+    private void annotatedJob() {
+    }
+}
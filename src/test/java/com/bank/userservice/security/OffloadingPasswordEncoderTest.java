@@ -0,0 +1,94 @@
+package com.bank.userservice.security;
+
+import com.bank.userservice.concurrent.VirtualThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Тестовый класс для {@link OffloadingPasswordEncoder}.
+ *
+ * <p>Проверяет, что хеширование выносится в пул только из виртуальных потоков.
+ * Проверки с виртуальными потоками выполняются только на Java 21+.
+ */
+class OffloadingPasswordEncoderTest {
+
+    private final ExecutorService hashExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "password-hash-test"));
+
+    /** Поток, в котором выполнялся последний вызов кодировщика */
+    private final AtomicReference<String> hashThread = new AtomicReference<>();
+
+    private final PasswordEncoder delegate = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashThread.set(Thread.currentThread().getName());
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            hashThread.set(Thread.currentThread().getName());
+            if (encodedPassword == null) {
+                throw new IllegalArgumentException("Encoded password is null");
+            }
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+    };
+
+    private final OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(delegate, hashExecutor);
+
+    @AfterEach
+    void tearDown() {
+        hashExecutor.shutdownNow();
+    }
+
+    /**
+     * Тест вызова из платформенного потока.
+     *
+     * <p>Проверяет, что хеширование выполняется в вызывающем потоке без передачи в пул.
+     */
+    @Test
+    void encode_PlatformThread_RunsInCallerThread() {
+        assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+
+        assertEquals("hash:secret", encoder.encode("secret"));
+        assertEquals(Thread.currentThread().getName(), hashThread.get());
+    }
+
+    /**
+     * Тест вызова из виртуального потока.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Хеширование выполняется в пуле, а результат возвращается вызывающему потоку</li>
+     *   <li>Исключение кодировщика пробрасывается без обертки CompletionException</li>
+     * </ul>
+     */
+    @Test
+    void matches_VirtualThread_RunsInHashExecutor() {
+        assumeTrue(VirtualThreads.isSupported(), "Virtual threads require Java 21");
+
+        CompletableFuture<Boolean> matches = new CompletableFuture<>();
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        VirtualThreads.threadFactory("test-vt-").newThread(() -> {
+            matches.complete(encoder.matches("secret", "hash:secret"));
+            failure.complete(assertThrows(IllegalArgumentException.class, () -> encoder.matches("secret", null)));
+        }).start();
+
+        assertTrue(matches.join());
+        assertEquals("Encoded password is null", failure.join().getMessage());
+        assertEquals("password-hash-test", hashThread.get());
+    }
+}
@@ -1,31 +1,44 @@
 package com.bank.userservice.service;
 
+import com.bank.userservice.dto.EmailVerificationDto;
 import com.bank.userservice.dto.LoginDto;
 import com.bank.userservice.dto.RegistrationDto;
 import com.bank.userservice.dto.UserResponseDto;
 import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
+
+import com.bank.userservice.exception.InvalidCaptchaException;
 
 import com.bank.userservice.model.User;
+import com.bank.userservice.model.UserCredentials;
 import com.bank.userservice.model.log.enums.LogLevel;
 
 import com.bank.userservice.repository.UserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import jakarta.mail.MessagingException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -65,13 +78,26 @@ class AuthServiceTest {
     /** Кодировщик паролей для тестов */
     private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(12);
 
+    /** Пул потоков для параллельных шагов регистрации */
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
     /**
      * Настройка тестового окружения перед каждым тестом.
-     * Устанавливает кодировщик паролей через reflection.
+     * Устанавливает кодировщик паролей и пулы потоков через reflection.
      */
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(authService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(authService, "authIoExecutor", executor);
+        ReflectionTestUtils.setField(authService, "passwordHashExecutor", executor);
+    }
+
+    /**
+     * Останавливает пул потоков после каждого теста.
+     */
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
     }
 
     /**
@@ -100,28 +126,26 @@ class AuthServiceTest {
         // 1. Пользователь не существует
         when(userRepository.findByUsername("testuser"))
                 .thenReturn(Optional.empty());
-        when(userRepository.findByEmail("test@example.com"))
+        when(userRepository.findByEmailOnPrimary("test@example.com"))
                 .thenReturn(Optional.empty());
         // 2. Имитируем сохранение пользователя
         User user = createTestUser();
         when(userRepository.save(any(User.class))).thenReturn(user);
         // Настройка интеграционного логгера
-        AuthResponseDto mockResponse = new AuthResponseDto();
+        AuthResponseDto<AuthResultDto> mockResponse = new AuthResponseDto<>();
         mockResponse.setRqid(dto.getRqid());
         mockResponse.setStatusCode(HttpStatus.OK.value());
-        mockResponse.setResponse(Map.of(
-                "message", "Login successful",
-                "user", new UserResponseDto(1L, "testuser", "test@example.com", LocalDateTime.now())
-        ));
-        when(integrationLogService.logInteraction(any())).thenReturn(mockResponse);
+        mockResponse.setResponse(new AuthResultDto("Login successful",
+                new UserResponseDto(1L, "testuser", "test@example.com", LocalDateTime.now())));
+        when(integrationLogService.logInteraction(any(AuthResultDto.class))).thenReturn(mockResponse);
 
         // Вызов тестируемого метода
-        AuthResponseDto result = authService.register(dto);
+        AuthResponseDto<AuthResultDto> result = authService.register(dto);
 
         assertNotNull(result);
         assertEquals(result.getRqid(), mockResponse.getRqid());
 
-        UserResponseDto userDto = (UserResponseDto) result.getResponse().get("user");
+        UserResponseDto userDto = result.getResponse().user();
         assertEquals(1L, userDto.getId());
         assertEquals("testuser", userDto.getUsername());
 
@@ -177,6 +201,106 @@ class AuthServiceTest {
                         anyString());
     }
 
+    /**
+     * Тест регистрации с именем, отличающимся от существующего только регистром.
+     *
+     * <p>Проверяет, что имена сравниваются в каноническом виде и
+     * пользователь получает сообщение о занятом имени.
+     */
+    @Test
+    void register_ExistingUsernameDifferentCase_ThrowsUsernameExists() {
+        RegistrationDto dto = createValidRegistrationDto();
+        dto.setUsername(" TestUser ");
+        when(userRepository.findByUsername(" TestUser ")).thenReturn(Optional.of(createTestUser()));
+
+        BadCredentialsException exception = assertThrows(BadCredentialsException.class,
+                () -> authService.register(dto));
+
+        assertEquals("Username already exists", exception.getMessage());
+    }
+
+    /**
+     * Тест параллельной регистрации того же email.
+     *
+     * <p>Проверяет, что нарушение уникальности при сохранении (email заняли после проверки)
+     * возвращается как BadCredentialsException с обычным сообщением, а не как ошибка БД.
+     */
+    @Test
+    void register_EmailTakenConcurrently_ThrowsEmailRegistered() throws MessagingException {
+        RegistrationDto dto = createValidRegistrationDto();
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException("duplicate key"), "uk_users_email_canonical")));
+
+        BadCredentialsException exception = assertThrows(BadCredentialsException.class,
+                () -> authService.register(dto));
+
+        assertEquals("Email already registered", exception.getMessage());
+        verify(emailService, never()).sendVerificationEmail(any(), any(), any());
+    }
+
+    /**
+     * Тест нарушения уникальности email с именем ограничения, выбранным Hibernate.
+     *
+     * <p>Проверяет, что в базе, созданной ddl-auto=update, нарушение определяется
+     * по столбцу в сообщении PostgreSQL.
+     */
+    @Test
+    void register_EmailTakenWithHibernateConstraintName_ThrowsEmailRegistered() {
+        RegistrationDto dto = createValidRegistrationDto();
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException(
+                        "ERROR: duplicate key value violates unique constraint \"uk6dotkott2kjsp8vw4d0m25fb7\"\n"
+                                + "  Detail: Key (email)=(user@example.com) already exists."),
+                        "uk6dotkott2kjsp8vw4d0m25fb7")));
+
+        BadCredentialsException exception = assertThrows(BadCredentialsException.class,
+                () -> authService.register(dto));
+
+        assertEquals("Email already registered", exception.getMessage());
+    }
+
+    /**
+     * Тест подтверждения email учетной записи, зарегистрированной заново.
+     *
+     * <p>Проверяет, что пользователь ищется на основной БД в обход кэша, поэтому токен новой
+     * регистрации принимается, даже если в кэше осталась удаленная учетная запись.
+     */
+    @Test
+    void verifyEmail_ReRegisteredAccount_ReadsUserFromPrimary() throws JsonProcessingException {
+        User user = createTestUser();
+        user.setEmailVerified(false);
+        user.setEmailVerificationToken("new-token");
+        user.setEmailVerificationTokenExpiresAt(LocalDateTime.now().plusHours(1));
+        when(userRepository.findByEmailOnPrimary("test@example.com")).thenReturn(Optional.of(user));
+
+        authService.verifyEmail(new EmailVerificationDto("rqid-verify", "new-token", "test@example.com"));
+
+        assertTrue(user.isEmailVerified());
+        assertNull(user.getEmailVerificationToken());
+        verify(userRepository).save(user);
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    /**
+     * Тест регистрации с неверной капчей.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Проброс исключения проверки капчи без обертки</li>
+     *   <li>Отсутствие сохранения пользователя</li>
+     * </ul>
+     */
+    @Test
+    void register_InvalidCaptcha_ThrowsException() {
+        RegistrationDto dto = createValidRegistrationDto();
+        doThrow(new InvalidCaptchaException("CAPTCHA verification failed"))
+                .when(captchaService).verifyCaptcha(dto);
+
+        assertThrows(InvalidCaptchaException.class, () -> authService.register(dto));
+
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     /**
      * Тест регистрации с невалидными данными.
      *
@@ -217,27 +341,25 @@ class AuthServiceTest {
         User mockUser = createTestUser();
 
         // Настройка моков
-        when(userRepository.findByEmail(dto.getEmail()))
-                .thenReturn(Optional.of(mockUser));
+        when(userRepository.findCredentialsByEmail(dto.getEmail()))
+                .thenReturn(Optional.of(credentialsOf(mockUser)));
 
-        AuthResponseDto mockResponse = new AuthResponseDto();
+        AuthResponseDto<AuthResultDto> mockResponse = new AuthResponseDto<>();
         mockResponse.setRqid(dto.getRqid());
         mockResponse.setStatusCode(HttpStatus.OK.value());
-        mockResponse.setResponse(Map.of(
-                "message", "Login successful",
-                "user", new UserResponseDto(1L, "testuser", "test@example.com", LocalDateTime.now())
-        ));
-        when(integrationLogService.logInteraction(any()))
+        mockResponse.setResponse(new AuthResultDto("Login successful",
+                new UserResponseDto(1L, "testuser", "test@example.com", LocalDateTime.now())));
+        when(integrationLogService.logInteraction(any(AuthResultDto.class)))
                 .thenReturn(mockResponse);
 
         // Вызов
-        AuthResponseDto result = authService.login(dto);
+        AuthResponseDto<AuthResultDto> result = authService.login(dto);
 
         // Проверки
         assertNotNull(result);
-        assertEquals("Login successful", result.getResponse().get("message"));
+        assertEquals("Login successful", result.getResponse().message());
 
-        UserResponseDto userDto = (UserResponseDto) result.getResponse().get("user");
+        UserResponseDto userDto = result.getResponse().user();
         assertEquals(1L, userDto.getId());
         assertEquals("testuser", userDto.getUsername());
 
@@ -260,6 +382,31 @@ class AuthServiceTest {
         );
     }
 
+    /**
+     * Тест входа с устаревшими данными в кэше.
+     *
+     * <p>Проверяет, что неподтвержденная учетная запись из кэша перечитывается из БД
+     * и вход проходит, если email уже подтвержден через другой экземпляр.
+     */
+    @Test
+    void login_CachedUnverifiedVerifiedElsewhere_ReturnsSuccess() throws JsonProcessingException {
+        LoginDto dto = createValidLoginDto();
+        User verifiedUser = createTestUser();
+        User cachedUser = createTestUser();
+        cachedUser.setEmailVerified(false);
+        cachedUser.setEmailVerificationTokenExpiresAt(LocalDateTime.now().minusDays(1));
+
+        when(userRepository.findCredentialsByEmail(dto.getEmail()))
+                .thenReturn(Optional.of(credentialsOf(cachedUser)));
+        when(userRepository.refreshCredentialsByEmail(dto.getEmail()))
+                .thenReturn(Optional.of(credentialsOf(verifiedUser)));
+
+        authService.login(dto);
+
+        verify(userRepository, never()).deleteById(any());
+        verify(emailService).sendLoginNotification(eq("test@example.com"), eq("testuser"), eq("rqid"));
+    }
+
     /**
      * Тест входа несуществующего пользователя.
      *
@@ -273,7 +420,7 @@ class AuthServiceTest {
     void login_InvalidUsername_ThrowsException() {
         LoginDto dto = createValidLoginDto();
 
-        when(userRepository.findByEmail(dto.getEmail()))
+        when(userRepository.findCredentialsByEmail(dto.getEmail()))
                 .thenReturn(Optional.empty());
 
         assertThrows(BadCredentialsException.class, () -> authService.login(dto));
@@ -304,8 +451,8 @@ class AuthServiceTest {
         mockUser.setPassword(passwordEncoder.encode("wrongpassword"));
 
 
-        when(userRepository.findByEmail(dto.getEmail()))
-                .thenReturn(Optional.of(mockUser));
+        when(userRepository.findCredentialsByEmail(dto.getEmail()))
+                .thenReturn(Optional.of(credentialsOf(mockUser)));
 
 
         assertThrows(BadCredentialsException.class, () -> authService.login(dto));
@@ -319,6 +466,48 @@ class AuthServiceTest {
 
     }
 
+    /**
+     * Тест асинхронного входа.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Сравнение хешей выполняется в пуле хеширования, запрос к БД - в пуле ввода-вывода</li>
+     *   <li>Ошибка входа передается через результат без обертки</li>
+     * </ul>
+     */
+    @Test
+    void loginAsync_InvalidPassword_RunsHashOnHashExecutorAndFails() {
+        ExecutorService ioExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-io"));
+        ExecutorService hashExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-hash"));
+        ReflectionTestUtils.setField(authService, "authIoExecutor", ioExecutor);
+        ReflectionTestUtils.setField(authService, "passwordHashExecutor", hashExecutor);
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        PasswordEncoder recordingEncoder = mock(PasswordEncoder.class);
+        when(recordingEncoder.matches(any(), any())).thenAnswer(invocation -> {
+            threads.put("hash", Thread.currentThread().getName());
+            return false;
+        });
+        ReflectionTestUtils.setField(authService, "passwordEncoder", recordingEncoder);
+
+        LoginDto dto = createValidLoginDto();
+        when(userRepository.findCredentialsByEmail(dto.getEmail())).thenAnswer(invocation -> {
+            threads.put("db", Thread.currentThread().getName());
+            return Optional.of(credentialsOf(createTestUser()));
+        });
+
+        try {
+            CompletionException exception = assertThrows(
+                    CompletionException.class, () -> authService.loginAsync(dto).join());
+
+            assertInstanceOf(BadCredentialsException.class, exception.getCause());
+            assertEquals("test-io", threads.get("db"));
+            assertEquals("test-hash", threads.get("hash"));
+        } finally {
+            ioExecutor.shutdownNow();
+            hashExecutor.shutdownNow();
+        }
+    }
+
     /**
      * Тест входа с пустыми полями.
      *
@@ -367,6 +556,17 @@ class AuthServiceTest {
         return user;
     }
 
+    /**
+     * Создает данные для входа из тестового пользователя.
+     *
+     * @param user тестовый пользователь
+     * @return проекция с полями, используемыми при входе
+     */
+    private UserCredentials credentialsOf(User user) {
+        return new UserCredentials(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+                user.isEmailVerified(), user.getEmailVerificationTokenExpiresAt(), user.getCreatedAt());
+    }
+
     /**
      * Создает валидный DTO для регистрации.
      *
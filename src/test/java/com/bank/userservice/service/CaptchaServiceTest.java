@@ -1,8 +1,14 @@
 package com.bank.userservice.service;
 
+import com.bank.userservice.dto.MathChallengeDto;
+import com.bank.userservice.dto.PowChallengeDto;
 import com.bank.userservice.dto.RecaptchaResponseDto;
 import com.bank.userservice.dto.RegistrationDto;
 import com.bank.userservice.exception.InvalidCaptchaException;
+import com.bank.userservice.repository.UsedPowChallengeRepository;
+import com.bank.userservice.security.ChallengeSigner;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,10 +16,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +47,13 @@ class CaptchaServiceTest {
     private RestTemplate restTemplate;
     @Mock
     private ApplicationLogService applicationLogService;
+    @Spy
+    private CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    @Spy
+    private ChallengeSigner challengeSigner = new ChallengeSigner("test-captcha-secret");
+    private UsedPowChallengeRepository usedPowChallengeRepository = mock(UsedPowChallengeRepository.class);
+    @Spy
+    private ProofOfWorkService proofOfWorkService = new ProofOfWorkService(challengeSigner, usedPowChallengeRepository);
     @InjectMocks
     private CaptchaService captchaService;
 
@@ -43,11 +62,10 @@ class CaptchaServiceTest {
 
     /**
      * Настройка тестового окружения перед каждым тестом.
-     * Инициализирует restTemplate и тестовые данные.
+     * Инициализирует тестовые данные (restTemplate внедряется через конструктор).
      */
     @BeforeEach
     void setUp() {
-        captchaService.setRestTemplate(restTemplate);
        // captchaService.setSecretKey("test-secret-key");
         registrationDto = new RegistrationDto();
         registrationDto.setRqid("rqid");
@@ -109,14 +127,53 @@ class CaptchaServiceTest {
         assertDoesNotThrow(() -> captchaService.verifyCaptcha(registrationDto));
     }
 
+    /**
+     * Тест переключения на математическую капчу при недоступности reCAPTCHA.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Ошибка Google API не пробрасывается клиенту</li>
+     *   <li>Проверяется математическая капча из того же запроса</li>
+     * </ul>
+     */
+    @Test
+    void verifyCaptcha_RecaptchaUnavailable_FallsBackToMath() {
+        registrationDto.setVerificationType("recaptcha");
+        registrationDto.setRecaptchaToken("valid-token");
+        MathChallengeDto challenge = captchaService.createMathChallenge();
+        registrationDto.setMathToken(challenge.getToken());
+        registrationDto.setMathAnswer(String.valueOf(solve(challenge)));
+
+        when(restTemplate.postForObject(anyString(), any(), eq(RecaptchaResponseDto.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        assertDoesNotThrow(() -> captchaService.verifyCaptcha(registrationDto));
+    }
+
+    /**
+     * Тест разомкнутого circuit breaker'а без математической капчи.
+     */
+    @Test
+    void verifyCaptcha_RecaptchaCircuitOpen_WithoutMathToken_ThrowsException() {
+        registrationDto.setVerificationType("recaptcha");
+        registrationDto.setRecaptchaToken("valid-token");
+        circuitBreakerRegistry.circuitBreaker(CaptchaService.RECAPTCHA_CIRCUIT_BREAKER).transitionToOpenState();
+
+        assertThrows(InvalidCaptchaException.class,
+                () -> captchaService.verifyCaptcha(registrationDto));
+        verifyNoInteractions(restTemplate);
+    }
+
     /**
      * Тест успешной проверки математической капчи.
      *
      */
     @Test
     void verifyCaptcha_MathValid_NoException() {
+        MathChallengeDto challenge = captchaService.createMathChallenge();
         registrationDto.setVerificationType("math");
-        registrationDto.setMathToken("2 + 3 = 5");
+        registrationDto.setMathToken(challenge.getToken());
+        registrationDto.setMathAnswer(String.valueOf(solve(challenge)));
 
         // Проверяем что исключение не выбрасывается
         assertDoesNotThrow(() -> captchaService.verifyCaptcha(registrationDto));
@@ -132,14 +189,50 @@ class CaptchaServiceTest {
      */
     @Test
     void verifyCaptcha_MathInvalid_ThrowsException() {
+        MathChallengeDto challenge = captchaService.createMathChallenge();
         registrationDto.setVerificationType("math");
-        registrationDto.setMathToken("2 + 3 = 6");
+        registrationDto.setMathToken(challenge.getToken());
+        registrationDto.setMathAnswer(String.valueOf(solve(challenge) + 1));
 
         // Проверяем что выбрасывается исключение
         assertThrows(InvalidCaptchaException.class,
                 () -> captchaService.verifyCaptcha(registrationDto));
     }
 
+    /**
+     * Тест проверки proof-of-work через общий метод проверки CAPTCHA.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Отсутствие исключения при решении, найденном перебором</li>
+     *   <li>Учет попытки регистрации для расчета сложности</li>
+     * </ul>
+     */
+    @Test
+    void verifyCaptcha_PowValid_NoException() throws Exception {
+        proofOfWorkService.setBaseDifficulty(4);
+        when(usedPowChallengeRepository.tryUse(anyString(), anyLong())).thenReturn(1);
+        PowChallengeDto challenge = proofOfWorkService.createChallenge();
+        registrationDto.setVerificationType("pow");
+        registrationDto.setPowChallenge(challenge.getChallenge());
+        registrationDto.setPowSolution(String.valueOf(findPowSolution(challenge)));
+
+        assertDoesNotThrow(() -> captchaService.verifyCaptcha(registrationDto));
+        assertEquals(1, proofOfWorkService.registrationRatePerMinute());
+    }
+
+    /**
+     * Тест proof-of-work без решения.
+     */
+    @Test
+    void verifyCaptcha_PowWithoutSolution_ThrowsException() {
+        registrationDto.setVerificationType("pow");
+        registrationDto.setPowChallenge(proofOfWorkService.createChallenge().getChallenge());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> captchaService.verifyCaptcha(registrationDto));
+    }
+
     /**
      * Тест неверного типа капча.
      *
@@ -158,61 +251,135 @@ class CaptchaServiceTest {
     }
 
     /**
-     * Тест корректного сложения.
+     * Тест выдачи задачи.
      *
+     * <p>Проверяет формат задачи и токена.
      */
+    @Test
+    void createMathChallenge_ReturnsProblemAndSignedToken() {
+        MathChallengeDto challenge = captchaService.createMathChallenge();
 
+        assertTrue(challenge.getProblem().matches("\\d+ [+\\-*] \\d+"));
+        assertEquals(3, challenge.getToken().split("\\.").length);
+        assertNotNull(challenge.getExpiresAt());
+    }
+
+    /**
+     * Тест корректных ответов для всех операций.
+     *
+     */
+    @Test
+    void verifyMathCaptcha_CorrectAnswer_ReturnsTrue() {
+        for (int i = 0; i < 20; i++) {
+            MathChallengeDto challenge = captchaService.createMathChallenge();
+            assertTrue(captchaService.verifyMathCaptcha(
+                    challenge.getToken(), String.valueOf(solve(challenge)), "rqid"));
+        }
+    }
+    /**
+     * Тест неверного ответа.
+     *
+     */
     @Test
-    void verifyMathCaptcha_ValidAddition_ReturnsTrue() {
-        assertTrue(captchaService.verifyMathCaptcha("2 + 3 = 5", "rqid"));
+    void verifyMathCaptcha_WrongAnswer_ReturnsFalse() {
+        MathChallengeDto challenge = captchaService.createMathChallenge();
+        assertFalse(captchaService.verifyMathCaptcha(
+                challenge.getToken(), String.valueOf(solve(challenge) + 1), "rqid"));
     }
     /**
-     * Тест корректного вычитания.
+     * Тест подделки срока действия токена.
      *
      */
     @Test
-    void verifyMathCaptcha_ValidSubtraction_ReturnsTrue() {
-        assertTrue(captchaService.verifyMathCaptcha("5 - 3 = 2", "rqid"));
+    void verifyMathCaptcha_TamperedToken_ReturnsFalse() {
+        MathChallengeDto challenge = captchaService.createMathChallenge();
+        String token = challenge.getToken();
+        String tampered = (Long.parseLong(token.substring(0, token.indexOf('.'))) + 3600)
+                + token.substring(token.indexOf('.'));
+
+        assertFalse(captchaService.verifyMathCaptcha(tampered, String.valueOf(solve(challenge)), "rqid"));
     }
     /**
-     * Тест корректного умножения.
+     * Тест токена, подписанного другим ключом.
      *
      */
     @Test
-    void verifyMathCaptcha_ValidMultiplication_ReturnsTrue() {
-        assertTrue(captchaService.verifyMathCaptcha("2 * 3 = 6", "rqid"));
+    void verifyMathCaptcha_ForeignKey_ReturnsFalse() {
+        MathChallengeDto challenge = captchaService.createMathChallenge();
+        ReflectionTestUtils.setField(captchaService, "challengeSigner", new ChallengeSigner("another-secret"));
+
+        assertFalse(captchaService.verifyMathCaptcha(
+                challenge.getToken(), String.valueOf(solve(challenge)), "rqid"));
     }
     /**
-     * Тест некорректного ответа сложения.
+     * Тест истекшего токена.
      *
      */
     @Test
-    void verifyMathCaptcha_InvalidAddition_ReturnsFalse() {
-        assertFalse(captchaService.verifyMathCaptcha("2 + 3 = 6",  "rqid"));
+    void verifyMathCaptcha_ExpiredToken_ReturnsFalse() {
+        captchaService.setMathChallengeTtlSeconds(-1);
+        MathChallengeDto challenge = captchaService.createMathChallenge();
+
+        assertFalse(captchaService.verifyMathCaptcha(
+                challenge.getToken(), String.valueOf(solve(challenge)), "rqid"));
     }
     /**
-     * Тест неверного формата уравнения.
+     * Тест нечислового ответа.
       */
     @Test
-    void verifyMathCaptcha_InvalidFormat_ThrowsException() {
+    void verifyMathCaptcha_InvalidAnswer_ThrowsException() {
+        MathChallengeDto challenge = captchaService.createMathChallenge();
         assertThrows(NumberFormatException.class,
-                () -> captchaService.verifyMathCaptcha("2 + abc = xys", "rqid"));
+                () -> captchaService.verifyMathCaptcha(challenge.getToken(), "abc", "rqid"));
     }
     /**
      * Тест на null вместо токена.
       */
     @Test
-    void verifyMathCaptcha_NullProblem_ThrowsException() {
+    void verifyMathCaptcha_NullToken_ThrowsException() {
         assertThrows(IllegalArgumentException.class,
-                () -> captchaService.verifyMathCaptcha(null, "rqid"));
+                () -> captchaService.verifyMathCaptcha(null, "5", "rqid"));
     }
     /**
-     * Тест пустого ответа.
+     * Тест токена неверного формата.
      */
     @Test
-    void verifyMathCaptcha_NullAnswer_ThrowsException() {
+    void verifyMathCaptcha_InvalidFormat_ThrowsException() {
         assertThrows(InvalidCaptchaException.class,
-                () -> captchaService.verifyMathCaptcha("2 + 3 = ", "rqid"));
+                () -> captchaService.verifyMathCaptcha("2 + 3 = 5", "5", "rqid"));
+    }
+
+    /**
+     * Решает выданную задачу.
+     *
+     * @param challenge задача
+     * @return правильный ответ
+     */
+    private int solve(MathChallengeDto challenge) {
+        String[] parts = challenge.getProblem().split(" ");
+        int num1 = Integer.parseInt(parts[0]);
+        int num2 = Integer.parseInt(parts[2]);
+        return switch (parts[1]) {
+            case "+" -> num1 + num2;
+            case "-" -> num1 - num2;
+            default -> num1 * num2;
+        };
+    }
+
+    /**
+     * Перебором находит решение задачи proof-of-work.
+     *
+     * @param challenge задача
+     * @return решение
+     */
+    private long findPowSolution(PowChallengeDto challenge) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        for (long counter = 0; ; counter++) {
+            byte[] hash = sha256.digest((challenge.getChallenge() + ":" + counter).getBytes(StandardCharsets.UTF_8));
+            if (ProofOfWorkService.leadingZeroBits(hash) >= challenge.getDifficulty()) {
+                return counter;
+            }
+        }
     }
 
 }
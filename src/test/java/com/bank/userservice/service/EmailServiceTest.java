@@ -1,5 +1,7 @@
 package com.bank.userservice.service;
 
+import com.bank.userservice.model.PendingEmail;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import jakarta.mail.Address;
 import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -22,7 +25,9 @@ import org.mockito.Captor;
 
 import jakarta.mail.MessagingException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Тестовый класс для {@link EmailService}.
@@ -32,6 +37,7 @@ import java.time.LocalDateTime;
  *   <li>Отправку различных типов email-сообщений</li>
  *   <li>Формирование MIME-сообщений</li>
  *   <li>Обработку ошибок при отправке</li>
+ *   <li>Отправку писем, сохраненных в БД при остановке экземпляров</li>
  *   <li>Логирование операций</li>
  * </ul>
  */
@@ -46,6 +52,15 @@ class EmailServiceTest {
 
     @Mock
     private MimeMessage mimeMessage;
+
+    @Mock
+    private EmailOutbox emailOutbox;
+
+    @Mock
+    private EmailSpillService emailSpillService;
+
+    @Spy
+    private CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
     /** Захватчик для простых email-сообщений */
     @Captor
     private ArgumentCaptor<SimpleMailMessage> simpleMessageCaptor;
@@ -132,6 +147,97 @@ class EmailServiceTest {
         verifyLogSuccess("HTML email", testEmail);
     }
 
+    /**
+     * Проверяет деградированный режим при ошибке SMTP.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Отсутствие проброса исключения вызывающему коду</li>
+     *   <li>Постановку письма в очередь на повторную отправку</li>
+     * </ul>
+     */
+    @Test
+    void sendLoginNotification_WhenSmtpFails_ShouldQueueEmail() {
+        doThrow(new RuntimeException("Mail error")).when(mailSender).send(any(SimpleMailMessage.class));
+        when(emailOutbox.enqueue(any())).thenReturn(true);
+
+        assertDoesNotThrow(() -> emailService.sendLoginNotification(testEmail, testUsername, testRqid));
+
+        verify(emailOutbox).enqueue(argThat(email ->
+                email.getTo().equals(testEmail) && email.getAttempts() == 1 && !email.isHtml()));
+    }
+
+    /**
+     * Проверяет, что при разомкнутом circuit breaker'е SMTP не вызывается.
+     */
+    @Test
+    void sendLoginNotification_WhenCircuitOpen_ShouldQueueWithoutCallingSmtp() {
+        circuitBreakerRegistry.circuitBreaker(EmailService.SMTP_CIRCUIT_BREAKER).transitionToOpenState();
+        when(emailOutbox.enqueue(any())).thenReturn(true);
+
+        emailService.sendLoginNotification(testEmail, testUsername, testRqid);
+
+        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+        verify(emailOutbox).enqueue(argThat(email -> email.getAttempts() == 0));
+    }
+
+    /**
+     * Проверяет, что письмо из БД удаляется только после отправки.
+     */
+    @Test
+    void redeliverQueuedEmails_SpilledEmailSent_ShouldDeleteRow() {
+        PendingEmail spilled = spilledEmail();
+        when(emailSpillService.claim()).thenReturn(List.of(spilled));
+
+        emailService.redeliverQueuedEmails();
+
+        verify(mailSender).send(any(SimpleMailMessage.class));
+        verify(emailSpillService).remove(spilled);
+        verify(emailSpillService, never()).recordFailedAttempt(any());
+    }
+
+    /**
+     * Проверяет, что письмо из БД, которое не удалось отправить, остается в БД
+     * с увеличенным числом попыток и не попадает в очередь экземпляра.
+     */
+    @Test
+    void redeliverQueuedEmails_SpilledEmailFails_ShouldKeepRowWithAttempt() {
+        PendingEmail spilled = spilledEmail();
+        when(emailSpillService.claim()).thenReturn(List.of(spilled));
+        doThrow(new RuntimeException("Mail error")).when(mailSender).send(any(SimpleMailMessage.class));
+
+        emailService.redeliverQueuedEmails();
+
+        verify(emailSpillService).recordFailedAttempt(argThat(email -> email.getAttempts() == 2));
+        verify(emailSpillService, never()).remove(any());
+        verify(emailOutbox, never()).enqueue(any());
+    }
+
+    /**
+     * Проверяет, что при разомкнутом circuit breaker'е письма из БД не арендуются.
+     */
+    @Test
+    void redeliverQueuedEmails_WhenCircuitOpen_ShouldNotClaimSpilledEmails() {
+        circuitBreakerRegistry.circuitBreaker(EmailService.SMTP_CIRCUIT_BREAKER).transitionToOpenState();
+
+        emailService.redeliverQueuedEmails();
+
+        verify(emailSpillService, never()).claim();
+    }
+
+    /**
+     * Проверяет, что после остановки повторная отправка по расписанию не трогает
+     * ни очередь, ни письма в БД.
+     */
+    @Test
+    void redeliverQueuedEmails_AfterStopRedelivery_ShouldDoNothing() {
+        assertTrue(emailService.stopRedelivery(Duration.ofSeconds(1)));
+
+        emailService.redeliverQueuedEmails();
+
+        verifyNoInteractions(emailOutbox, emailSpillService, mailSender);
+    }
+
     /**
      * Проверяет создание простого текстового сообщения.
      *
@@ -346,6 +452,14 @@ class EmailServiceTest {
                 anyString()
         );
     }
+    /**
+     * Создает письмо, сохраненное в БД после одной неудачной попытки.
+     */
+    private PendingEmail spilledEmail() {
+        return new PendingEmail(1L, testEmail, "subject", "body", false, testRqid, 1,
+                LocalDateTime.now(), LocalDateTime.now().plusMinutes(5));
+    }
+
     /**
      * Вспомогательный метод для проверки логирования успешной операции.
      *
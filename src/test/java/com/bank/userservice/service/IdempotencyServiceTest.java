@@ -0,0 +1,233 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.UserResponseDto;
+import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
+import com.bank.userservice.exception.IdempotencyConflictException;
+import com.bank.userservice.model.IdempotencyRecord;
+import com.bank.userservice.repository.IdempotencyRecordRepository;
+import com.bank.userservice.security.ChallengeSigner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link IdempotencyService}.
+ *
+ * <p>Проверяет повтор сохраненного ответа, ожидание выполняющегося запроса,
+ * отказ для rqid, использованного с другими данными, и владение записью по токену захвата.
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    @Mock
+    private ApplicationLogService applicationLogService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = service("idempotency-secret");
+    }
+
+    private IdempotencyService service(String secret) {
+        return new IdempotencyService(repository, new ChallengeSigner("captcha-secret"), secret,
+                new ObjectMapper().findAndRegisterModules(), applicationLogService, Runnable::run, meterRegistry,
+                Duration.ofMinutes(10), Duration.ofSeconds(60), Duration.ofMillis(300));
+    }
+
+    /**
+     * Тест повтора после выполнения.
+     *
+     * <p>Проверяет, что ответ первого выполнения сохраняется, а повтор с тем же rqid
+     * получает его без повторного выполнения запроса.
+     */
+    @Test
+    void execute_RepeatedRqid_ReplaysStoredResponse() {
+        when(repository.tryClaim(eq("register:rq-1"), anyString(), anyString(), eq(60_000L))).thenReturn(1, 0);
+        AuthResponseDto<AuthResultDto> first = register("rq-1", "secret-password").join();
+
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(repository).tryClaim(eq("register:rq-1"), fingerprint.capture(), token.capture(), anyLong());
+        verify(repository).complete(eq("register:rq-1"), eq(token.getValue()), stored.capture(), eq(600_000L));
+        assertFalse(stored.getValue().contains("secret-password"));
+        when(repository.findCurrent("register:rq-1")).thenReturn(Optional.of(new IdempotencyRecord("register:rq-1",
+                fingerprint.getValue(), IdempotencyRecord.Status.COMPLETED, stored.getValue(),
+                LocalDateTime.now().plusMinutes(10), token.getValue())));
+
+        AuthResponseDto<AuthResultDto> replayed = register("rq-1", "secret-password").join();
+
+        assertEquals(1, executions.get());
+        assertEquals(first, replayed);
+        assertEquals(1.0, meterRegistry.get("app.idempotency.requests").tag("outcome", "replayed").counter().count());
+    }
+
+    /**
+     * Тест одновременных повторов.
+     *
+     * <p>Проверяет, что повтор, пришедший во время выполнения, ожидает первый запрос
+     * и получает тот же ответ, а запрос выполняется один раз.
+     */
+    @Test
+    void execute_ConcurrentDuplicate_WaitsForFirstExecution() {
+        when(repository.tryClaim(anyString(), anyString(), anyString(), anyLong())).thenReturn(1);
+        CompletableFuture<AuthResponseDto<AuthResultDto>> execution = new CompletableFuture<>();
+        List<String> request = List.of("user@example.com", "password");
+
+        CompletableFuture<AuthResponseDto<AuthResultDto>> first = idempotencyService.execute(
+                IdempotencyService.LOGIN, "rq-2", request, () -> {
+                    executions.incrementAndGet();
+                    return execution;
+                });
+        CompletableFuture<AuthResponseDto<AuthResultDto>> duplicate = idempotencyService.execute(
+                IdempotencyService.LOGIN, "rq-2", request, () -> {
+                    executions.incrementAndGet();
+                    return CompletableFuture.completedFuture(null);
+                });
+        assertFalse(duplicate.isDone());
+
+        execution.complete(response("rq-2"));
+
+        assertSame(first.join(), duplicate.join());
+        assertEquals(1, executions.get());
+        verify(repository, times(1)).tryClaim(anyString(), anyString(), anyString(), anyLong());
+    }
+
+    /**
+     * Тест повтора rqid с другими данными.
+     *
+     * <p>Проверяет, что запрос отклоняется с IdempotencyConflictException и не выполняется.
+     */
+    @Test
+    void execute_SameRqidDifferentRequest_Rejected() {
+        when(repository.tryClaim(anyString(), anyString(), anyString(), anyLong())).thenReturn(0);
+        when(repository.findCurrent("register:rq-3")).thenReturn(Optional.of(new IdempotencyRecord("register:rq-3",
+                "other-fingerprint", IdempotencyRecord.Status.IN_PROGRESS, null, LocalDateTime.now().plusMinutes(1),
+                "other-token")));
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> register("rq-3", "another-password").join());
+
+        assertInstanceOf(IdempotencyConflictException.class, exception.getCause());
+        assertEquals(0, executions.get());
+    }
+
+    /**
+     * Тест ошибки выполнения.
+     *
+     * <p>Проверяет, что ответ с ошибкой не сохраняется, а запись освобождается,
+     * чтобы повтор выполнился заново.
+     */
+    @Test
+    void execute_ExecutionFails_ReleasesRecord() {
+        when(repository.tryClaim(anyString(), anyString(), anyString(), anyLong())).thenReturn(1);
+
+        CompletableFuture<AuthResponseDto<AuthResultDto>> result = idempotencyService.execute(
+                IdempotencyService.REGISTER, "rq-4", List.of("user"),
+                () -> CompletableFuture.failedFuture(new IllegalArgumentException("Registration data is incorrect")));
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        verify(repository).release(eq("register:rq-4"), anyString());
+        verify(repository, never()).complete(anyString(), anyString(), anyString(), anyLong());
+    }
+
+    /**
+     * Тест выполнения, чей срок истек.
+     *
+     * <p>Проверяет, что после захвата записи повтором на другом экземпляре первое выполнение
+     * сохраняет и освобождает запись только по своему токену захвата, а не по токену повтора.
+     */
+    @Test
+    void execute_StaleExecution_TouchesOnlyOwnClaim() {
+        when(repository.tryClaim(anyString(), anyString(), anyString(), anyLong())).thenReturn(1);
+        CompletableFuture<AuthResponseDto<AuthResultDto>> staleExecution = new CompletableFuture<>();
+        List<String> request = List.of("user", "user@example.com", "password");
+
+        CompletableFuture<AuthResponseDto<AuthResultDto>> stale = idempotencyService.execute(
+                IdempotencyService.REGISTER, "rq-5", request, () -> staleExecution);
+        CompletableFuture<AuthResponseDto<AuthResultDto>> retry = service("idempotency-secret").execute(
+                IdempotencyService.REGISTER, "rq-5", request,
+                () -> CompletableFuture.completedFuture(response("rq-5")));
+        staleExecution.completeExceptionally(new IllegalStateException("Mail server is unavailable"));
+
+        assertThrows(CompletionException.class, stale::join);
+        assertEquals(response("rq-5"), retry.join());
+        ArgumentCaptor<String> tokens = ArgumentCaptor.forClass(String.class);
+        verify(repository, times(2)).tryClaim(eq("register:rq-5"), anyString(), tokens.capture(), anyLong());
+        String staleToken = tokens.getAllValues().get(0);
+        String retryToken = tokens.getAllValues().get(1);
+        assertNotEquals(staleToken, retryToken);
+        verify(repository).release("register:rq-5", staleToken);
+        verify(repository).complete(eq("register:rq-5"), eq(retryToken), anyString(), anyLong());
+        verify(repository, never()).release("register:rq-5", retryToken);
+        verify(repository, never()).complete(eq("register:rq-5"), eq(staleToken), anyString(), anyLong());
+    }
+
+    /**
+     * Тест ключа подписи данных запроса.
+     *
+     * <p>Проверяет, что данные запроса подписываются ключом {@code app.idempotency.secret},
+     * а без него - ключом, выведенным из ключа CAPTCHA, но не самим ключом CAPTCHA.
+     */
+    @Test
+    void execute_Fingerprint_NotSignedWithCaptchaKey() {
+        when(repository.tryClaim(anyString(), anyString(), anyString(), anyLong())).thenReturn(1);
+        List<String> request = List.of("user", "user@example.com", "password");
+        String payload = "register:rq-6\n" + String.join("\n", request);
+
+        idempotencyService.execute(IdempotencyService.REGISTER, "rq-6", request,
+                () -> CompletableFuture.completedFuture(response("rq-6"))).join();
+        service("").execute(IdempotencyService.REGISTER, "rq-6", request,
+                () -> CompletableFuture.completedFuture(response("rq-6"))).join();
+
+        ArgumentCaptor<String> fingerprints = ArgumentCaptor.forClass(String.class);
+        verify(repository, times(2)).tryClaim(eq("register:rq-6"), fingerprints.capture(), anyString(), anyLong());
+        assertEquals(new ChallengeSigner("idempotency-secret").sign(payload), fingerprints.getAllValues().get(0));
+        assertNotEquals(new ChallengeSigner("captcha-secret").sign(payload), fingerprints.getAllValues().get(1));
+    }
+
+    private CompletableFuture<AuthResponseDto<AuthResultDto>> register(String rqid, String password) {
+        return idempotencyService.execute(IdempotencyService.REGISTER, rqid,
+                List.of("user", "user@example.com", password), () -> {
+                    executions.incrementAndGet();
+                    return CompletableFuture.completedFuture(response(rqid));
+                });
+    }
+
+    private static AuthResponseDto<AuthResultDto> response(String rqid) {
+        AuthResponseDto<AuthResultDto> response = new AuthResponseDto<>();
+        response.setRqid(rqid);
+        response.setRsid("rsid-" + rqid);
+        response.setStatusCode(200);
+        response.setResponseTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+        response.setResponse(new AuthResultDto("Registration successful",
+                new UserResponseDto(1L, "user", "user@example.com", LocalDateTime.of(2024, 1, 1, 12, 0))));
+        return response;
+    }
+}
@@ -0,0 +1,128 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.config.JacksonConfig;
+import com.bank.userservice.dto.UserResponseDto;
+import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Замер сериализации ответа входа для {@code IntegrationLog.responseData} (JMH).
+ *
+ * <p>Сравниваются три варианта записи одного ответа:
+ * <ul>
+ *   <li>{@code prettyMap} - прежний: ответ с данными в {@code Map}, JSON с отступами</li>
+ *   <li>{@code compactMap} - ответ с данными в {@code Map}, компактный JSON</li>
+ *   <li>{@code compactTypedWriter} - текущий: типизированный ответ и сериализатор, созданный
+ *       один раз для типа, как в {@link IntegrationLogService}</li>
+ * </ul>
+ * Тест не входит в обычную сборку и запускается вручную:
+ * <pre>
+ * mvn test -Dtest=IntegrationLogJsonBenchmarkIT -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class IntegrationLogJsonBenchmarkIT {
+    private ObjectMapper prettyMapper;
+    private ObjectMapper compactMapper;
+    private ObjectWriter typedWriter;
+    private AuthResponseDto<Map<String, Object>> mapResponse;
+    private AuthResponseDto<AuthResultDto> typedResponse;
+
+    /**
+     * Готовит сериализаторы и ответ входа.
+     */
+    @Setup
+    public void setUp() {
+        compactMapper = new JacksonConfig().objectMapper();
+        prettyMapper = new JacksonConfig().objectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        // Так же, как IntegrationLogService.logWriter
+        typedWriter = compactMapper
+                .writerFor(compactMapper.getTypeFactory().constructParametricType(AuthResponseDto.class, AuthResultDto.class))
+                .without(SerializationFeature.INDENT_OUTPUT);
+
+        UserResponseDto user = new UserResponseDto(42L, "testuser", "test@example.com",
+                LocalDateTime.of(2024, 1, 1, 10, 0));
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", "Login successful");
+        body.put("user", user);
+        mapResponse = response(body);
+        typedResponse = response(new AuthResultDto("Login successful", user));
+    }
+
+    @Benchmark
+    public byte[] prettyMap() throws Exception {
+        return prettyMapper.writeValueAsBytes(mapResponse);
+    }
+
+    @Benchmark
+    public byte[] compactMap() throws Exception {
+        return compactMapper.writeValueAsBytes(mapResponse);
+    }
+
+    @Benchmark
+    public byte[] compactTypedWriter() throws Exception {
+        return typedWriter.writeValueAsBytes(typedResponse);
+    }
+
+    /**
+     * Выводит размер ответа в каждом варианте и запускает замер.
+     */
+    @Test
+    void serialization_CompactTypedWriter_SmallerThanPrettyMap() throws Exception {
+        setUp();
+        int pretty = prettyMap().length;
+        int compact = compactMap().length;
+        int typed = compactTypedWriter().length;
+        System.out.printf("Login response size: %d bytes pretty with Map, %d bytes compact with Map,"
+                + " %d bytes compact typed%n", pretty, compact, typed);
+        assertTrue(typed < pretty);
+
+        run();
+    }
+
+    private static void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IntegrationLogJsonBenchmarkIT.class.getName())
+                .build())
+                .run();
+    }
+
+    private static <T> AuthResponseDto<T> response(T body) {
+        AuthResponseDto<T> response = new AuthResponseDto<>();
+        response.setRqid("RQ_6f1c1d1e-3b0a-4a57-9d8e-6f2a3c1b0d11");
+        response.setRsid("RES_01J9Z3K4N5P6Q7R8S9T0V1W2X3");
+        response.setStatusCode(200);
+        response.setResponseTime(LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123456789));
+        response.setResponse(body);
+        return response;
+    }
+}
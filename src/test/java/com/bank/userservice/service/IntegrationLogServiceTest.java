@@ -0,0 +1,111 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.config.JacksonConfig;
+import com.bank.userservice.dto.UserResponseDto;
+import com.bank.userservice.dto.auth.AuthResponseDto;
+import com.bank.userservice.dto.auth.AuthResultDto;
+import com.bank.userservice.dto.auth.ErrorDto;
+import com.bank.userservice.dto.auth.RequestContext;
+import com.bank.userservice.id.MonotonicIdGenerator;
+import com.bank.userservice.model.log.IntegrationLog;
+import com.bank.userservice.repository.log.ApplicationLogRepository;
+import com.bank.userservice.repository.log.IntegrationLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Тестовый класс для {@link IntegrationLogService}.
+ *
+ * <p>Проверяет формат {@code responseData}: компактный JSON с типизированными
+ * данными ответа, в том числе при включенном форматировании HTTP-ответов.
+ */
+@ExtendWith(MockitoExtension.class)
+class IntegrationLogServiceTest {
+
+    @Mock
+    private IntegrationLogRepository integrationLogRepository;
+
+    @Mock
+    private ApplicationLogRepository applicationLogRepository;
+
+    private final RequestContext requestContext = new RequestContext();
+
+    @AfterEach
+    void tearDown() {
+        requestContext.clear();
+    }
+
+    /**
+     * Тест логирования успешного ответа.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Ответ содержит rqid текущего запроса и переданные данные</li>
+     *   <li>В лог записывается rsid ответа, а не новый</li>
+     *   <li>responseData записан в одну строку, даже если ObjectMapper форматирует вывод</li>
+     * </ul>
+     */
+    @Test
+    void logInteraction_PrettyPrintMapper_StoresCompactJson() throws Exception {
+        ObjectMapper prettyMapper = new JacksonConfig().objectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        IntegrationLogService service = new IntegrationLogService(
+                integrationLogRepository, applicationLogRepository, prettyMapper, requestContext,
+                new MonotonicIdGenerator());
+        requestContext.setRqid("rqid-1");
+        UserResponseDto user = new UserResponseDto(1L, "testuser", "test@example.com",
+                LocalDateTime.of(2024, 1, 1, 10, 0));
+
+        AuthResponseDto<AuthResultDto> response = service.logInteraction(new AuthResultDto("Login successful", user));
+
+        assertEquals("rqid-1", response.getRqid());
+        assertEquals(HttpStatus.OK.value(), response.getStatusCode());
+        IntegrationLog log = savedLog();
+        assertEquals(response.getRsid(), log.getRsid());
+        assertTrue(response.getRsid().startsWith(IntegrationLogService.RSID_PREFIX));
+        String responseData = log.getResponseData();
+        assertFalse(responseData.contains("\n"));
+        assertTrue(responseData.contains("\"response\":{\"message\":\"Login successful\",\"user\":{\"id\":1,"
+                + "\"username\":\"testuser\",\"email\":\"test@example.com\",\"createdAt\":\"2024-01-01T10:00:00\"}}"));
+    }
+
+    /**
+     * Тест логирования ошибки.
+     *
+     * <p>Проверяет, что данные ошибки записываются в поле {@code response.error}.
+     */
+    @Test
+    void logErrorToIntegrationLogs_StoresErrorResponse() throws Exception {
+        IntegrationLogService service = new IntegrationLogService(
+                integrationLogRepository, applicationLogRepository, new JacksonConfig().objectMapper(), requestContext,
+                new MonotonicIdGenerator());
+        requestContext.setRqid("rqid-2");
+
+        AuthResponseDto<ErrorDto> response = service.logErrorToIntegrationLogs(HttpStatus.UNAUTHORIZED, "Invalid password");
+
+        assertEquals("Invalid password", response.getResponse().error());
+        IntegrationLog log = savedLog();
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), log.getStatusCode());
+        assertTrue(log.getResponseData().startsWith("{\"rqid\":\"rqid-2\""));
+        assertTrue(log.getResponseData().contains("\"response\":{\"error\":\"Invalid password\"}"));
+    }
+
+    private IntegrationLog savedLog() {
+        ArgumentCaptor<IntegrationLog> captor = ArgumentCaptor.forClass(IntegrationLog.class);
+        verify(integrationLogRepository).save(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,283 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.config.JacksonConfig;
+import com.bank.userservice.dto.LogArchiveManifestDto;
+import com.bank.userservice.dto.LogArchiveSegmentDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link LogArchiveService} и {@link LogArchiveReader}.
+ *
+ * <p>Таблица {@code application_logs} заменена картой "id - время записи": чтение отбирает
+ * строки старше границы, удаление убирает переданные идентификаторы.
+ *
+ * <p>Проверяет:
+ * <ul>
+ *   <li>Запись строк в gzip сегменты с разбиением по размеру</li>
+ *   <li>Обновление манифеста</li>
+ *   <li>Удаление из БД только выгруженных строк</li>
+ *   <li>Архивацию строк, время которых не совпадает с порядком идентификаторов</li>
+ *   <li>Удаление сегментов, не попавших в манифест</li>
+ *   <li>Поиск по архиву по rqid и диапазону времени</li>
+ * </ul>
+ */
+@ExtendWith(MockitoExtension.class)
+class LogArchiveServiceTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path archiveDir;
+
+    private LogArchiveReader logArchiveReader;
+
+    private LogArchiveService logArchiveService;
+
+    /** Строки таблицы: идентификатор и время записи */
+    private final TreeMap<Long, LocalDateTime> table = new TreeMap<>();
+
+    /** Ошибка чтения после выдачи всех строк, null - без ошибки */
+    private RuntimeException readFailure;
+
+    /** Ошибка удаления, null - без ошибки */
+    private RuntimeException deleteFailure;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        logArchiveReader = new LogArchiveReader(new JacksonConfig().objectMapper(), archiveDir.toString());
+        logArchiveService = new LogArchiveService(jdbcTemplate, transactionManager, logArchiveReader,
+                new JacksonConfig().objectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(logArchiveService, "segmentMaxRows", 2L);
+        ReflectionTestUtils.setField(logArchiveService, "deleteBatchSize", 2);
+        stubTable();
+    }
+
+    /**
+     * Тест архивации таблицы.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Разбиение строк на сегменты не больше segmentMaxRows</li>
+     *   <li>Диапазоны идентификаторов и времени в манифесте</li>
+     *   <li>Удаление выгруженных строк и отметку сегментов как удаленных</li>
+     *   <li>Поиск записанных строк по rqid и времени</li>
+     * </ul>
+     */
+    @Test
+    void archiveTable_WritesSegmentsManifestAndDeletes() throws Exception {
+        addRows(1, 3);
+
+        long deleted = logArchiveService.archiveTable("application_logs", "timestamp", BASE_TIME.plusDays(1));
+
+        assertEquals(3, deleted);
+        assertTrue(table.isEmpty());
+        LogArchiveManifestDto manifest = logArchiveReader.readManifest();
+        assertEquals(2, manifest.getSegments().size());
+        assertTrue(manifest.getSegments().stream().allMatch(LogArchiveSegmentDto::isPurged));
+        LogArchiveSegmentDto first = manifest.getSegments().get(0);
+        assertEquals(2, first.getRows());
+        assertEquals(1, first.getMinId());
+        assertEquals(2, first.getMaxId());
+        assertEquals(BASE_TIME.plusMinutes(1), first.getFrom());
+        assertEquals(BASE_TIME.plusMinutes(2), first.getTo());
+        assertTrue(Files.exists(archiveDir.resolve(first.getFile())));
+        try (var files = Files.list(archiveDir)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+
+        List<Map<String, Object>> found = logArchiveReader.search(
+                "application_logs", "rqid-2", null, null, 10);
+        assertEquals(1, found.size());
+        assertEquals("message 2", found.get(0).get("message"));
+        assertEquals("application_logs", found.get(0).get("table"));
+
+        List<Map<String, Object>> byTime = logArchiveReader.search(
+                null, null, BASE_TIME.plusMinutes(2), BASE_TIME.plusMinutes(3), 10);
+        assertEquals(2, byTime.size());
+    }
+
+    /**
+     * Тест строки, время которой не соответствует порядку идентификаторов.
+     *
+     * <p>Строка 100 записана позже строки 101 и на момент первого запуска новее границы.
+     * Проверяет, что первый запуск ее не удаляет, а следующий запуск архивирует и удаляет.
+     */
+    @Test
+    void archiveTable_OutOfOrderRowAtCutoff_IsKeptUntilArchived() throws Exception {
+        LocalDateTime cutoff = BASE_TIME.plusDays(1);
+        table.put(100L, cutoff.plusSeconds(1));
+        table.put(101L, cutoff.minusSeconds(1));
+
+        assertEquals(1, logArchiveService.archiveTable("application_logs", "timestamp", cutoff));
+        assertEquals(List.of(100L), List.copyOf(table.keySet()));
+
+        assertEquals(1, logArchiveService.archiveTable("application_logs", "timestamp", cutoff.plusDays(1)));
+        assertTrue(table.isEmpty());
+        assertEquals(1, logArchiveReader.search("application_logs", "rqid-100", null, null, 10).size());
+        assertEquals(1, logArchiveReader.search("application_logs", "rqid-101", null, null, 10).size());
+    }
+
+    /**
+     * Тест запуска, прерванного при удалении.
+     *
+     * <p>Проверяет, что следующий запуск сначала удаляет строки уже выгруженного сегмента,
+     * поэтому они не попадают в архив повторно, а затем архивирует новые строки.
+     */
+    @Test
+    void archiveTable_DeleteFailed_NextRunPurgesBeforeReading() throws Exception {
+        addRows(1, 2);
+        deleteFailure = new DataAccessResourceFailureException("Connection reset");
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> logArchiveService.archiveTable("application_logs", "timestamp", BASE_TIME.plusDays(1)));
+        assertFalse(logArchiveReader.readManifest().getSegments().get(0).isPurged());
+
+        deleteFailure = null;
+        addRows(3, 3);
+        assertEquals(3, logArchiveService.archiveTable("application_logs", "timestamp", BASE_TIME.plusDays(1)));
+
+        assertTrue(table.isEmpty());
+        assertEquals(2, logArchiveReader.readManifest().getSegments().size());
+        assertEquals(1, logArchiveReader.search("application_logs", "rqid-1", null, null, 10).size());
+    }
+
+    /**
+     * Тест ошибки во время выгрузки.
+     *
+     * <p>Проверяет, что сегменты, записанные прерванным запуском, и сегменты, оставшиеся
+     * от аварийно завершенного запуска, удаляются, а строки остаются в БД.
+     */
+    @Test
+    void archiveTable_ReadFails_DeletesUnlistedSegments() throws Exception {
+        Files.createFile(archiveDir.resolve("application_logs-20240101-000000-0001.ndjson.gz"));
+        addRows(1, 3);
+        readFailure = new DataAccessResourceFailureException("Connection reset");
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> logArchiveService.archiveTable("application_logs", "timestamp", BASE_TIME.plusDays(1)));
+
+        try (var files = Files.list(archiveDir)) {
+            assertEquals(0, files.count());
+        }
+        assertEquals(3, table.size());
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), any(PreparedStatementSetter.class));
+    }
+
+    /**
+     * Тест поиска по неархивируемой таблице.
+     */
+    @Test
+    void search_UnknownTable_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> logArchiveReader.search("users", null, null, null, 10));
+    }
+
+    /**
+     * Добавляет строки с идентификаторами from..to: время строки i - BASE_TIME + i минут.
+     */
+    private void addRows(long from, long to) {
+        for (long id = from; id <= to; id++) {
+            table.put(id, BASE_TIME.plusMinutes(id));
+        }
+    }
+
+    /**
+     * Подменяет чтение и удаление строк таблицы.
+     *
+     * <p>Строка id имеет rqid "rqid-id" и сообщение "message id". Чтение выдает строки
+     * старше переданной границы в порядке идентификаторов, удаление убирает строки
+     * с переданными идентификаторами.
+     */
+    private void stubTable() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        ResultSet rs = mock(ResultSet.class);
+        long[] current = {0};
+        lenient().when(rs.getMetaData()).thenReturn(metaData);
+        lenient().when(metaData.getColumnCount()).thenReturn(4);
+        lenient().when(metaData.getColumnLabel(1)).thenReturn("id");
+        lenient().when(metaData.getColumnLabel(2)).thenReturn("rqid");
+        lenient().when(metaData.getColumnLabel(3)).thenReturn("message");
+        lenient().when(metaData.getColumnLabel(4)).thenReturn("timestamp");
+        lenient().when(rs.getObject(anyInt())).thenAnswer(invocation -> switch ((int) invocation.getArgument(0)) {
+            case 1 -> current[0];
+            case 2 -> "rqid-" + current[0];
+            case 3 -> "message " + current[0];
+            default -> Timestamp.valueOf(table.get(current[0]));
+        });
+
+        lenient().doAnswer(invocation -> {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            invocation.<PreparedStatementSetter>getArgument(1).setValues(ps);
+            ArgumentCaptor<Timestamp> cutoff = ArgumentCaptor.forClass(Timestamp.class);
+            verify(ps).setTimestamp(eq(1), cutoff.capture());
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (Map.Entry<Long, LocalDateTime> row : new ArrayList<>(table.entrySet())) {
+                if (row.getValue().isBefore(cutoff.getValue().toLocalDateTime())) {
+                    current[0] = row.getKey();
+                    handler.processRow(rs);
+                }
+            }
+            if (readFailure != null) {
+                throw readFailure;
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT * FROM application_logs"),
+                any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        lenient().when(jdbcTemplate.update(startsWith("DELETE FROM application_logs"), any(PreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    if (deleteFailure != null) {
+                        throw deleteFailure;
+                    }
+                    PreparedStatement ps = mock(PreparedStatement.class);
+                    Connection connection = mock(Connection.class);
+                    List<Object> ids = new ArrayList<>();
+                    when(ps.getConnection()).thenReturn(connection);
+                    when(connection.createArrayOf(eq("bigint"), any())).thenAnswer(array -> {
+                        ids.addAll(List.of((Object[]) array.getArgument(1)));
+                        return mock(Array.class);
+                    });
+                    invocation.<PreparedStatementSetter>getArgument(1).setValues(ps);
+                    return (int) ids.stream().filter(id -> table.remove(((Number) id).longValue()) != null).count();
+                });
+    }
+}
@@ -0,0 +1,189 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.PowChallengeDto;
+import com.bank.userservice.exception.InvalidCaptchaException;
+import com.bank.userservice.repository.UsedPowChallengeRepository;
+import com.bank.userservice.security.ChallengeSigner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link ProofOfWorkService}.
+ *
+ * <p>Проверяет:
+ * <ul>
+ *   <li>Проверку правильных и неправильных решений</li>
+ *   <li>Защиту задачи подписью</li>
+ *   <li>Однократное использование задачи</li>
+ *   <li>Рост сложности вместе с частотой регистраций</li>
+ * </ul>
+ */
+class ProofOfWorkServiceTest {
+
+    private final UsedPowChallengeRepository usedPowChallengeRepository = mock(UsedPowChallengeRepository.class);
+    private ProofOfWorkService proofOfWorkService;
+
+    /**
+     * Настройка тестового окружения перед каждым тестом.
+     * Устанавливает небольшую сложность, чтобы решение подбиралось быстро.
+     */
+    @BeforeEach
+    void setUp() {
+        proofOfWorkService = new ProofOfWorkService(new ChallengeSigner("test-captcha-secret"), usedPowChallengeRepository);
+        proofOfWorkService.setBaseDifficulty(8);
+        proofOfWorkService.setMaxDifficulty(12);
+        proofOfWorkService.setRateThresholdPerMinute(10);
+    }
+
+    /**
+     * Тест правильного решения.
+     */
+    @Test
+    void verify_ValidSolution_ReturnsTrue() throws Exception {
+        when(usedPowChallengeRepository.tryUse(anyString(), anyLong())).thenReturn(1);
+        PowChallengeDto challenge = proofOfWorkService.createChallenge();
+
+        assertTrue(proofOfWorkService.verify(challenge.getChallenge(), solve(challenge)));
+        verify(usedPowChallengeRepository).tryUse(challenge.getChallenge().split("\\.")[2], 300);
+    }
+
+    /**
+     * Тест повторного использования решенной задачи.
+     *
+     * <p>Проверяет, что задача, nonce которой уже записан, отклоняется.
+     */
+    @Test
+    void verify_ReusedChallenge_ReturnsFalse() throws Exception {
+        when(usedPowChallengeRepository.tryUse(anyString(), anyLong())).thenReturn(1, 0);
+        PowChallengeDto challenge = proofOfWorkService.createChallenge();
+        String solution = solve(challenge);
+
+        assertTrue(proofOfWorkService.verify(challenge.getChallenge(), solution));
+        assertFalse(proofOfWorkService.verify(challenge.getChallenge(), solution));
+    }
+
+    /**
+     * Тест решения, не удовлетворяющего сложности.
+     */
+    @Test
+    void verify_InsufficientWork_ReturnsFalse() throws Exception {
+        PowChallengeDto challenge = proofOfWorkService.createChallenge();
+        String wrong = solve(challenge, false);
+
+        assertFalse(proofOfWorkService.verify(challenge.getChallenge(), wrong));
+        verifyNoInteractions(usedPowChallengeRepository);
+    }
+
+    /**
+     * Тест задачи с поддельной (заниженной) сложностью.
+     */
+    @Test
+    void verify_TamperedDifficulty_ReturnsFalse() throws Exception {
+        PowChallengeDto challenge = proofOfWorkService.createChallenge();
+        String[] parts = challenge.getChallenge().split("\\.");
+        String tampered = parts[0] + ".0." + parts[2] + "." + parts[3];
+
+        assertFalse(proofOfWorkService.verify(tampered, "1"));
+    }
+
+    /**
+     * Тест неверного формата задачи.
+     */
+    @Test
+    void verify_InvalidFormat_ThrowsException() {
+        assertThrows(InvalidCaptchaException.class, () -> proofOfWorkService.verify("garbage", "1"));
+    }
+
+    /**
+     * Тест роста сложности при увеличении частоты регистраций.
+     */
+    @Test
+    void currentDifficulty_GrowsWithRegistrationRate() {
+        assertEquals(8, proofOfWorkService.currentDifficulty());
+
+        for (int i = 0; i < 40; i++) {
+            proofOfWorkService.recordRegistrationAttempt();
+        }
+
+        assertEquals(40, proofOfWorkService.registrationRatePerMinute());
+        assertEquals(10, proofOfWorkService.currentDifficulty());
+    }
+
+    /**
+     * Тест одновременных попыток регистрации.
+     *
+     * <p>Проверяет, что попытки из нескольких потоков учитываются без потерь.
+     */
+    @Test
+    void recordRegistrationAttempt_ConcurrentCallers_CountsEveryAttempt() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        proofOfWorkService.recordRegistrationAttempt();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(20_000, proofOfWorkService.registrationRatePerMinute());
+    }
+
+    /**
+     * Тест ограничения максимальной сложности.
+     */
+    @Test
+    void currentDifficulty_IsCappedAtMaximum() {
+        for (int i = 0; i < 100_000; i++) {
+            proofOfWorkService.recordRegistrationAttempt();
+        }
+
+        assertEquals(12, proofOfWorkService.currentDifficulty());
+    }
+
+    /**
+     * Подбирает решение задачи так же, как это делает браузер.
+     *
+     * @param challenge задача
+     * @return решение
+     */
+    private String solve(PowChallengeDto challenge) throws Exception {
+        return solve(challenge, true);
+    }
+
+    /**
+     * Подбирает значение, которое удовлетворяет или не удовлетворяет сложности.
+     *
+     * @param challenge задача
+     * @param valid нужно ли правильное решение
+     * @return найденное значение
+     */
+    private String solve(PowChallengeDto challenge, boolean valid) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        for (long counter = 0; ; counter++) {
+            byte[] hash = sha256.digest((challenge.getChallenge() + ":" + counter).getBytes(StandardCharsets.UTF_8));
+            if ((ProofOfWorkService.leadingZeroBits(hash) >= challenge.getDifficulty()) == valid) {
+                return String.valueOf(counter);
+            }
+        }
+    }
+}
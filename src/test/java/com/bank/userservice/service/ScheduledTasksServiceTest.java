@@ -0,0 +1,100 @@
+package com.bank.userservice.service;
+
+import com.bank.userservice.dto.auth.RequestContext;
+import com.bank.userservice.model.log.enums.LogLevel;
+import com.bank.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link ScheduledTasksService}.
+ *
+ * <p>Проверяет пакетную очистку неподтвержденных пользователей.
+ */
+@ExtendWith(MockitoExtension.class)
+class ScheduledTasksServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationLogService applicationLogService;
+
+    @Mock
+    private RequestContext requestContext;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ScheduledTasksService scheduledTasksService;
+
+    /**
+     * Создает сервис с небольшим размером пачки и без пауз.
+     */
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduledTasksService = new ScheduledTasksService(userRepository, applicationLogService,
+                requestContext, new TransactionTemplate(transactionManager), meterRegistry);
+        ReflectionTestUtils.setField(scheduledTasksService, "batchSize", 2);
+        ReflectionTestUtils.setField(scheduledTasksService, "pauseMillis", 0L);
+    }
+
+    /**
+     * Тест удаления несколькими пачками.
+     *
+     * <p>Проверяет:
+     * <ul>
+     *   <li>Повтор удаления, пока удаляются полные пачки</li>
+     *   <li>Отдельную транзакцию для каждой пачки</li>
+     *   <li>Метрику количества удаленных пользователей</li>
+     *   <li>Логирование результата</li>
+     * </ul>
+     */
+    @Test
+    void cleanupUnverifiedUsers_DeletesInBatchesUntilPartialBatch() {
+        when(userRepository.deleteExpiredUnverifiedBatch(any(LocalDateTime.class), eq(2)))
+                .thenReturn(2, 2, 1);
+        when(requestContext.getRqid()).thenReturn("rqid");
+
+        scheduledTasksService.cleanupUnverifiedUsers();
+
+        verify(userRepository, times(3)).deleteExpiredUnverifiedBatch(any(LocalDateTime.class), eq(2));
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(5.0, meterRegistry.get("app.cleanup.unverified.deleted").counter().count());
+        verify(applicationLogService).log(eq(LogLevel.INFO),
+                eq("Deleted 5 expired unverified accounts in 3 batches"), eq("rqid"), anyString());
+    }
+
+    /**
+     * Тест очистки, когда удалять нечего.
+     *
+     * <p>Проверяет, что выполняется ровно один запрос удаления.
+     */
+    @Test
+    void cleanupUnverifiedUsers_NothingToDelete_RunsSingleBatch() {
+        when(userRepository.deleteExpiredUnverifiedBatch(any(LocalDateTime.class), eq(2))).thenReturn(0);
+
+        scheduledTasksService.cleanupUnverifiedUsers();
+
+        verify(userRepository, times(1)).deleteExpiredUnverifiedBatch(any(LocalDateTime.class), eq(2));
+        assertEquals(0.0, meterRegistry.get("app.cleanup.unverified.deleted").counter().count());
+    }
+}